@@ -0,0 +1,100 @@
+package io.virgo.virgoAPI.cache;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * HashKeyMap against HashMap keyed by Sha256Hash, filling a map and looking up every key
+ * <br><br>
+ * Run with {@code mvn -P jmh test-compile exec:exec}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashKeyMapBenchmark {
+
+	@Param({"1000", "100000"})
+	private int size;
+
+	private Sha256Hash[] hashes;
+	private HashKeyMap<Sha256Hash> hashKeyMap;
+	private HashMap<Sha256Hash, Sha256Hash> hashMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1);
+		hashes = new Sha256Hash[size];
+
+		for(int i = 0; i < size; i++) {
+			byte[] bytes = new byte[HashKey.BYTES];
+			random.nextBytes(bytes);
+
+			StringBuilder hex = new StringBuilder();
+			for(byte b : bytes)
+				hex.append(String.format("%02x", b));
+
+			hashes[i] = new Sha256Hash(hex.toString());
+		}
+
+		hashKeyMap = fillHashKeyMap();
+		hashMap = fillHashMap();
+	}
+
+	@Benchmark
+	public HashKeyMap<Sha256Hash> hashKeyMapPut() {
+		return fillHashKeyMap();
+	}
+
+	@Benchmark
+	public HashMap<Sha256Hash, Sha256Hash> hashMapPut() {
+		return fillHashMap();
+	}
+
+	@Benchmark
+	public void hashKeyMapGet(Blackhole blackhole) {
+		for(Sha256Hash hash : hashes)
+			blackhole.consume(hashKeyMap.get(hash));
+	}
+
+	@Benchmark
+	public void hashMapGet(Blackhole blackhole) {
+		for(Sha256Hash hash : hashes)
+			blackhole.consume(hashMap.get(hash));
+	}
+
+	private HashKeyMap<Sha256Hash> fillHashKeyMap() {
+		HashKeyMap<Sha256Hash> map = new HashKeyMap<Sha256Hash>();
+		for(Sha256Hash hash : hashes)
+			map.put(hash, hash);
+
+		return map;
+	}
+
+	private HashMap<Sha256Hash, Sha256Hash> fillHashMap() {
+		HashMap<Sha256Hash, Sha256Hash> map = new HashMap<Sha256Hash, Sha256Hash>();
+		for(Sha256Hash hash : hashes)
+			map.put(hash, hash);
+
+		return map;
+	}
+
+}
@@ -0,0 +1,166 @@
+package io.virgo.virgoAPI;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.virgo.virgoAPI.data.AddressTxs;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Lazy iterator over the full transactions history of an address
+ * <br><br>
+ * Pages are only requested once iteration starts. The first page gives the history's total size,
+ * from then on the next pages are requested concurrently ahead of the one being consumed, so a full scan
+ * is bound by bandwidth rather than by the latency of each page.<br>
+ * Pages are sliced by providers at the time they are requested, transactions added or removed during the scan may
+ * be missed or seen twice. This class isn't thread safe, {@link #close()} cancels pending requests.
+ * <p>
+ * Example:<br><br>
+ * {@code api.getAddressHistory(address, "outputs").stream().forEach(hash -> ...);}
+ * <p>
+ */
+public class AddressHistory implements Iterator<Sha256Hash>, AutoCloseable {
+
+	private AsyncVirgoAPI async;
+	private String address;
+	private String type;
+	private int perPage;
+	private int prefetch;
+
+	private ArrayDeque<CompletableFuture<AddressTxs>> pendingPages = new ArrayDeque<CompletableFuture<AddressTxs>>();
+	private int nextPage = 1;
+	private int totalPages = -1;
+	private int totalSize = -1;
+
+	private Sha256Hash[] current = new Sha256Hash[0];
+	private int position = 0;
+	private boolean closed = false;
+
+	AddressHistory(AsyncVirgoAPI async, String address, String type, int perPage, int prefetch) {
+		this.async = async;
+		this.address = address;
+		this.type = type;
+		this.perPage = perPage;
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(position >= current.length) {
+			if(closed || (totalPages != -1 && pendingPages.isEmpty() && nextPage > totalPages))
+				return false;
+
+			if(pendingPages.isEmpty())
+				requestPage();
+
+			int page = nextPage - pendingPages.size();
+			AddressTxs txs = pendingPages.poll().join();
+			if(txs == null)
+				throw new UncheckedIOException(new IOException("Unable to get page " + page + " of " + address + " transactions from remote"));
+
+			if(totalPages == -1) {
+				totalSize = txs.getTotalSize();
+				totalPages = (totalSize + perPage - 1) / perPage;
+			}
+
+			current = txs.getTransactions();
+			position = 0;
+
+			//a short page is the last one, even if the history shrank since its total size was read
+			if(current.length < perPage && page < totalPages) {
+				for(CompletableFuture<AddressTxs> pending : pendingPages)
+					pending.cancel(true);
+				pendingPages.clear();
+				totalPages = page;
+			}
+
+			prefetch();
+		}
+
+		return true;
+	}
+
+	@Override
+	public Sha256Hash next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+
+		return current[position++];
+	}
+
+	/**
+	 * @return The history's total size as reported by the first page, -1 if not fetched yet
+	 */
+	public int getTotalSize() {
+		return totalSize;
+	}
+
+	/**
+	 * @return A lazy ordered stream of the history, closing it cancels pending requests
+	 */
+	public Stream<Sha256Hash> stream() {
+		return StreamSupport.stream(() -> new HistorySpliterator(), Spliterator.ORDERED | Spliterator.NONNULL, false)
+				.onClose(this::close);
+	}
+
+	/**
+	 * Stop the iteration and cancel the pages requested ahead
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		current = new Sha256Hash[0];
+
+		for(CompletableFuture<AddressTxs> page : pendingPages)
+			page.cancel(true);
+		pendingPages.clear();
+	}
+
+	/**
+	 * Keep the configured amount of pages requested ahead, once the history's size is known
+	 */
+	private void prefetch() {
+		while(pendingPages.size() < prefetch && nextPage <= totalPages)
+			requestPage();
+	}
+
+	private void requestPage() {
+		pendingPages.add(async.getAddressPage(address, type, perPage, nextPage));
+		nextPage++;
+	}
+
+	/**
+	 * Estimates its size from the first page, which is fetched when the stream is consumed
+	 */
+	private class HistorySpliterator extends Spliterators.AbstractSpliterator<Sha256Hash> {
+
+		private HistorySpliterator() {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Sha256Hash> action) {
+			if(!hasNext())
+				return false;
+
+			action.accept(next());
+			return true;
+		}
+
+		@Override
+		public long estimateSize() {
+			return totalSize == -1 ? Long.MAX_VALUE : Math.max(0, totalSize - (long) (nextPage - pendingPages.size() - 1) * perPage + (current.length - position));
+		}
+
+	}
+
+}
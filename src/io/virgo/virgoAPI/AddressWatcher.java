@@ -0,0 +1,307 @@
+package io.virgo.virgoAPI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.virgo.virgoAPI.data.AddressTxs;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+import io.virgo.virgoCryptoLib.Utils;
+
+/**
+ * Watch many addresses for new outputs and publish them
+ * <br><br>
+ * The last known outputs count of each address is tracked. Addresses are polled in rounds: recently active addresses
+ * are part of every round, the others are polled in turn to fill the round. Rounds are split in shards of addresses
+ * polled concurrently, one shard after the other.<br>
+ * Providers are assumed to list an address's outputs in the order they were received, new ones being appended:
+ * only the page holding the outputs past the known count is requested, and the following ones if needed.
+ * The first poll of an address only records its outputs count, unless it's given when watched.
+ * Addresses that received an output in the last 10 minutes are considered active.<br>
+ * Outputs are never dropped: once a subscriber's buffer is full the address's known count stops before the first
+ * undelivered output, which is published again on the next round. Subscribers that already received it then get it twice.
+ */
+public class AddressWatcher implements Flow.Publisher<AddressWatcher.NewOutput>, AutoCloseable {
+
+	private static final int PAGE_SIZE = 100;
+	private static final long ACTIVE_WINDOW = 600000;
+
+	private AsyncVirgoAPI async;
+	private ScheduledExecutorService scheduler;
+	private long interval;
+	private int roundSize;
+	private int shardSize;
+
+	private ConcurrentHashMap<String, Watched> watched = new ConcurrentHashMap<String, Watched>();
+	private ConcurrentLinkedDeque<Watched> rotation = new ConcurrentLinkedDeque<Watched>();
+
+	private SubmissionPublisher<NewOutput> publisher;
+	private AtomicLong deferred = new AtomicLong();
+	private volatile boolean closed = false;
+
+	AddressWatcher(AsyncVirgoAPI async, ScheduledExecutorService scheduler, Executor executor, long interval, int roundSize, int shardSize) {
+		this.async = async;
+		this.scheduler = scheduler;
+		this.interval = interval;
+		this.roundSize = roundSize;
+		this.shardSize = shardSize;
+
+		publisher = new SubmissionPublisher<NewOutput>(executor, Flow.defaultBufferSize());
+	}
+
+	void start() {
+		scheduler.execute(this::pollRound);
+	}
+
+	/**
+	 * Run a round, the next one is scheduled once it's done
+	 */
+	private void pollRound() {
+		if(closed)
+			return;
+
+		round().whenComplete((v, e) -> {
+			try {
+				scheduler.schedule(this::pollRound, interval, TimeUnit.MILLISECONDS);
+			}catch(Exception rejected) {}
+		});
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super NewOutput> subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Start watching an address, its current outputs are not published
+	 * @param address the address to watch
+	 * @throws IllegalArgumentException if the address is invalid
+	 */
+	public void watch(String address) {
+		watch(address, -1);
+	}
+
+	/**
+	 * Start watching an address, ie to resume from a persisted outputs count
+	 * @param address the address to watch
+	 * @param knownOutputs the amount of outputs already known, the next ones are published, -1 if unknown
+	 * @throws IllegalArgumentException if the address is invalid
+	 */
+	public void watch(String address, int knownOutputs) {
+		if(!Utils.validateAddress(address, VirgoAPI.ADDR_IDENTIFIER))
+			throw new IllegalArgumentException(address + " is not a valid address");
+
+		Watched entry = new Watched(address, knownOutputs);
+		if(watched.putIfAbsent(address, entry) == null)
+			rotation.add(entry);
+	}
+
+	/**
+	 * Stop watching an address
+	 */
+	public void unwatch(String address) {
+		Watched entry = watched.remove(address);
+		if(entry != null)
+			rotation.remove(entry);
+	}
+
+	/**
+	 * @return The amount of outputs known for the given address, -1 if not watched or not polled yet
+	 */
+	public int getKnownOutputs(String address) {
+		Watched entry = watched.get(address);
+		return entry != null ? entry.outputs : -1;
+	}
+
+	/**
+	 * @return The amount of watched addresses
+	 */
+	public int size() {
+		return watched.size();
+	}
+
+	/**
+	 * @return The amount of times publishing an address's new outputs was put off to the next round because a subscriber's buffer was full
+	 */
+	public long getDeferredCount() {
+		return deferred.get();
+	}
+
+	/**
+	 * Stop polling and complete every subscriber
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		publisher.close();
+	}
+
+	/**
+	 * Poll the addresses of a round, shard after shard
+	 * @return a future completed once the round is done
+	 */
+	CompletableFuture<Void> round() {
+		List<Watched> due = pickRound();
+
+		CompletableFuture<Void> round = CompletableFuture.completedFuture(null);
+		for(int i = 0; i < due.size(); i += shardSize) {
+			List<Watched> shard = due.subList(i, Math.min(due.size(), i + shardSize));
+			round = round.thenCompose(v -> pollShard(shard));
+		}
+
+		return round;
+	}
+
+	/**
+	 * @return the recently active addresses, then the next addresses in turn until the round is full
+	 */
+	private List<Watched> pickRound() {
+		ArrayList<Watched> due = new ArrayList<Watched>();
+		long now = System.currentTimeMillis();
+
+		for(Watched entry : watched.values())
+			if(due.size() < roundSize && now - entry.lastActivity < ACTIVE_WINDOW && !entry.polling.get())
+				due.add(entry);
+
+		for(int i = watched.size(); i > 0 && due.size() < roundSize; i--) {
+			Watched entry = rotation.poll();
+			if(entry == null)
+				break;
+
+			if(watched.get(entry.address) == entry)
+				rotation.add(entry);
+
+			if(now - entry.lastActivity >= ACTIVE_WINDOW && !entry.polling.get())
+				due.add(entry);
+		}
+
+		return due;
+	}
+
+	private CompletableFuture<Void> pollShard(List<Watched> shard) {
+		ArrayList<CompletableFuture<Void>> polls = new ArrayList<CompletableFuture<Void>>();
+
+		for(Watched entry : shard) {
+			if(!entry.polling.compareAndSet(false, true))
+				continue;
+
+			polls.add(poll(entry, entry.outputs).whenComplete((v, e) -> entry.polling.set(false)));
+		}
+
+		return CompletableFuture.allOf(polls.toArray(new CompletableFuture<?>[polls.size()]));
+	}
+
+	/**
+	 * Request the page holding the outputs past the given index, publish the new ones and follow with the next page if needed
+	 */
+	private CompletableFuture<Void> poll(Watched entry, int from) {
+		int page = Math.max(0, from) / PAGE_SIZE + 1;
+
+		return async.getAddressPage(entry.address, "outputs", PAGE_SIZE, page).thenCompose(txs -> {
+			if(txs == null || watched.get(entry.address) != entry)
+				return CompletableFuture.completedFuture(null);
+
+			int size = txs.getTotalSize();
+
+			//first poll or outputs went away (ie refused transactions), only record the count
+			if(from < 0 || size < from) {
+				entry.outputs = size;
+				return CompletableFuture.completedFuture(null);
+			}
+
+			int known = publishNew(entry, txs, page, from);
+
+			if(known < size && known == page * PAGE_SIZE)
+				return poll(entry, known);
+
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+	/**
+	 * Publish the page's new outputs until one doesn't fit in every subscriber's buffer
+	 * @return the outputs count known once the page is published, ie delivered to every subscriber
+	 */
+	private int publishNew(Watched entry, AddressTxs txs, int page, int from) {
+		Sha256Hash[] outputs = txs.getTransactions();
+		int first = (page - 1) * PAGE_SIZE;
+		int known = from;
+
+		for(int i = from - first; i < outputs.length; i++) {
+			//a full buffer would drop the output, leave it for the next round
+			if(publisher.estimateMaximumLag() >= publisher.getMaxBufferCapacity()
+					|| publisher.offer(new NewOutput(entry.address, outputs[i], first + i), (subscriber, output) -> false) < 0) {
+				deferred.incrementAndGet();
+				break;
+			}
+
+			known = first + i + 1;
+			entry.lastActivity = System.currentTimeMillis();
+		}
+
+		entry.outputs = known;
+		return known;
+	}
+
+	private static class Watched {
+
+		private String address;
+		private volatile int outputs;
+		private volatile long lastActivity = 0;
+		private AtomicBoolean polling = new AtomicBoolean(false);
+
+		private Watched(String address, int outputs) {
+			this.address = address;
+			this.outputs = outputs;
+		}
+
+	}
+
+	/**
+	 * A new output received by a watched address
+	 */
+	public static class NewOutput {
+
+		private String address;
+		private Sha256Hash transaction;
+		private int index;
+
+		public NewOutput(String address, Sha256Hash transaction, int index) {
+			this.address = address;
+			this.transaction = transaction;
+			this.index = index;
+		}
+
+		/**
+		 * @return The watched address
+		 */
+		public String getAddress() {
+			return address;
+		}
+
+		/**
+		 * @return The hash of the transaction holding the output
+		 */
+		public Sha256Hash getTransaction() {
+			return transaction;
+		}
+
+		/**
+		 * @return The position of the output in the address's outputs
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+	}
+
+}
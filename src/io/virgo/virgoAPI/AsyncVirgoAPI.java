@@ -0,0 +1,1098 @@
+package io.virgo.virgoAPI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import io.virgo.virgoAPI.cache.BeaconStateCache;
+import io.virgo.virgoAPI.cache.HashKey;
+import io.virgo.virgoAPI.cache.HashKeyMap;
+import io.virgo.virgoAPI.cache.NegativeCache;
+import io.virgo.virgoAPI.cache.TinyLfuCache;
+import io.virgo.virgoAPI.cache.TransactionStateCache;
+import io.virgo.virgoAPI.cache.TransactionStore;
+import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.data.AddressBalance;
+import io.virgo.virgoAPI.data.AddressTxs;
+import io.virgo.virgoAPI.data.BeaconState;
+import io.virgo.virgoAPI.data.Transaction;
+import io.virgo.virgoAPI.data.TransactionState;
+import io.virgo.virgoAPI.network.BodyDecoder;
+import io.virgo.virgoAPI.network.DecodedResponse;
+import io.virgo.virgoAPI.network.HedgingPolicy;
+import io.virgo.virgoAPI.network.JsonReader;
+import io.virgo.virgoAPI.network.Provider;
+import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.requestsResponses.BroadcastResponse;
+import io.virgo.virgoAPI.requestsResponses.GetAddressesTxsResponse;
+import io.virgo.virgoAPI.requestsResponses.GetBalancesResponse;
+import io.virgo.virgoAPI.requestsResponses.GetBeaconsStateResponse;
+import io.virgo.virgoAPI.requestsResponses.GetLatestBeaconsResp;
+import io.virgo.virgoAPI.requestsResponses.GetLatestTxsResponse;
+import io.virgo.virgoAPI.requestsResponses.GetPoWInformationsResponse;
+import io.virgo.virgoAPI.requestsResponses.GetTipsResponse;
+import io.virgo.virgoAPI.requestsResponses.GetTransactionsResponse;
+import io.virgo.virgoAPI.requestsResponses.GetTxsStateResponse;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+import io.virgo.virgoCryptoLib.Utils;
+
+/**
+ * Non-blocking view of {@link VirgoAPI}, every query returns a {@link CompletableFuture}<br>
+ * Requests are sent through the providers' asynchronous transport and responses are decoded on the configured executor
+ * straight from the response stream, so no thread is held while waiting for a provider and bodies are never buffered as a whole.
+ * <p>
+ * Example:<br><br>
+ * {@code api.async().getTxsState(hashes).thenAccept(resp -> ...);}
+ * <p>
+ */
+public class AsyncVirgoAPI {
+
+	private VirgoAPI api;
+	private Executor executor;
+	private int providerParallelism;
+	private HedgingPolicy hedging;
+	private int broadcastQuorum;
+	private int batchSize;
+	private SingleFlight<String> flights;
+	private CompletableFuture<Void> heightRefresh = null;
+
+	AsyncVirgoAPI(VirgoAPI api, Executor executor, int providerParallelism, HedgingPolicy hedging, int broadcastQuorum, boolean coalesceRequests, int batchSize) {
+		this.api = api;
+		this.executor = executor;
+		this.providerParallelism = providerParallelism;
+		this.hedging = hedging;
+		this.broadcastQuorum = broadcastQuorum;
+		this.batchSize = batchSize;
+
+		if(coalesceRequests)
+			flights = new SingleFlight<String>();
+	}
+
+	/**
+	 * Get tips transactions from peers<br>
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @return a future completed with a {@link GetTipsResponse} containing the request result
+	 */
+	public CompletableFuture<GetTipsResponse> getTips() {
+		return firstValid("/tips", AsyncVirgoAPI::parseHashes)
+				.thenApply(tips -> tips != null ? new GetTipsResponse(ResponseCode.OK, tips) : new GetTipsResponse(ResponseCode.NOT_FOUND, null));
+	}
+
+	/**
+	 * Get tips transactions, served from the background refreshed snapshot if it's recent enough
+	 *
+	 * @param maxAge the maximum age of the snapshot in milliseconds, a fresh request is made if older or if snapshots are disabled
+	 * @return a future completed with a {@link GetTipsResponse} containing the request result
+	 */
+	public CompletableFuture<GetTipsResponse> getTips(long maxAge) {
+		SnapshotRefresher<GetTipsResponse> refresher = api.getTipsRefresher();
+		return refresher != null ? refresher.get(maxAge) : getTips();
+	}
+
+	/**
+	 * Get latest beacons from peers<br>
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @return a future completed with a {@link GetLatestBeaconsResp} containing the request result
+	 */
+	public CompletableFuture<GetLatestBeaconsResp> getLatestBeacons() {
+		return getLatestBeacons(10);
+	}
+
+	/**
+	 * Get latest beacons from peers<br>
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @param wanted the amount of beacons you want, up to 1000
+	 * @return a future completed with a {@link GetLatestBeaconsResp} containing the request result
+	 */
+	public CompletableFuture<GetLatestBeaconsResp> getLatestBeacons(int wanted) {
+		return firstValid("/beacon/latest/"+wanted, AsyncVirgoAPI::parseHashes).thenApply(beacons -> {
+			if(beacons == null)
+				return new GetLatestBeaconsResp(ResponseCode.NOT_FOUND, null);
+
+			BeaconStateCache beaconCache = api.getBeaconStateCache();
+			if(beaconCache != null)
+				beaconCache.onTip(beacons.get(0));
+
+			return new GetLatestBeaconsResp(ResponseCode.OK, beacons);
+		});
+	}
+
+	/**
+	 * Get latest transactions from peers<br>
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @return a future completed with a {@link GetLatestTxsResponse} containing the request result
+	 */
+	public CompletableFuture<GetLatestTxsResponse> getLatestTxs() {
+		return getLatestTxs(10);
+	}
+
+	/**
+	 * Get latest transactions from peers<br>
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @param wanted the amount of transactions you want, up to 1000
+	 * @return a future completed with a {@link GetLatestTxsResponse} containing the request result
+	 */
+	public CompletableFuture<GetLatestTxsResponse> getLatestTxs(int wanted) {
+		return firstValid("/tx/latest/"+wanted, AsyncVirgoAPI::parseHashes)
+				.thenApply(txs -> txs != null ? new GetLatestTxsResponse(ResponseCode.OK, txs) : new GetLatestTxsResponse(ResponseCode.NOT_FOUND, null));
+	}
+
+	/**
+	 * Get raw transactions from their identifiers<br>
+	 * Every transaction is requested concurrently, each missing one is immediately asked to the next peer.
+	 * Peers supporting batched lookups are asked for many transactions per request.
+	 * Transactions already in the transaction cache or in the transaction store are served locally,
+	 * transactions no peer recently knew are not asked again until the negative cache forgets them.
+	 *
+	 * @param txsHashes The hashes of the wanted transactions
+	 * @return a future completed with a {@link GetTransactionsResponse} containing the request result
+	 */
+	public CompletableFuture<GetTransactionsResponse> getTransactions(Collection<Sha256Hash> txsHashes) {
+
+		//remove duplicate entries from wanted transactions
+		HashSet<Sha256Hash> wanted = new HashSet<Sha256Hash>(txsHashes);
+
+		ConcurrentHashMap<Sha256Hash, Transaction> foundTransactions = new ConcurrentHashMap<Sha256Hash, Transaction>();
+
+		//if one wanted transaction is genesis get it without consulting peers as it's hardcoded
+		Sha256Hash genesisHash = new Sha256Hash("025a6f04e7047b713aaba7fc5003c8266302918c25d1526507becad795b01f3a");
+		if(wanted.remove(genesisHash)) {
+			HashMap<String, TxOutput> genesisOutputs = new HashMap<String, TxOutput>();
+			genesisOutputs.put("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv", new TxOutput("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv",(long) (100000 * Math.pow(10, VirgoAPI.DECIMALS))));
+
+			foundTransactions.put(genesisHash,
+					new Transaction(genesisHash,null,null,new Sha256Hash[0],new Sha256Hash[0], genesisOutputs, null, null, 0));
+		}
+
+		for(Iterator<Sha256Hash> it = wanted.iterator(); it.hasNext();) {
+			Sha256Hash hash = it.next();
+			Transaction local = getLocalTransaction(hash);
+
+			if(local != null) {
+				foundTransactions.put(hash, local);
+				it.remove();
+			}else if(isKnownMissing("/tx/"+hash.toString())) {
+				it.remove();
+			}
+		}
+
+		TinyLfuCache<HashKey, Transaction> transactionCache = api.getTransactionCache();
+		TransactionStore transactionStore = api.getTransactionStore();
+
+		BatchDecoder<Sha256Hash, Transaction> txDecoder = (hash, reader) -> {
+			Transaction tx = Transaction.fromJSONStream(reader);
+
+			//check if given transaction is desired
+			if(tx != null && tx.getHash().equals(hash)) {
+				if(transactionCache != null)
+					transactionCache.put(HashKey.of(hash), tx);
+				if(transactionStore != null)
+					transactionStore.put(tx);
+				return tx;
+			}
+
+			return null;
+		};
+
+		return lookup(wanted, foundTransactions,
+				hash -> "/tx/"+hash.toString(),
+				(hash, body) -> txDecoder.decode(hash, new JsonReader(body)),
+				"/txs", txDecoder).thenApply(v -> {
+					recordMissing(wanted, foundTransactions, hash -> "/tx/"+hash.toString());
+
+					if(foundTransactions.size() != 0)
+						return GetTransactionsResponse.of(ResponseCode.OK, new HashKeyMap<Transaction>(foundTransactions));
+
+					return GetTransactionsResponse.of(ResponseCode.NOT_FOUND, new HashKeyMap<Transaction>());
+				});
+	}
+
+	/**
+	 * Look for a transaction in memory then in the persistent store
+	 * @return the transaction, or null if it has to be fetched
+	 */
+	private Transaction getLocalTransaction(Sha256Hash hash) {
+		TinyLfuCache<HashKey, Transaction> transactionCache = api.getTransactionCache();
+		TransactionStore transactionStore = api.getTransactionStore();
+
+		if(transactionCache != null) {
+			Transaction cached = transactionCache.get(HashKey.of(hash));
+			if(cached != null)
+				return cached;
+		}
+
+		if(transactionStore != null) {
+			Transaction stored = transactionStore.get(hash);
+			if(stored != null && transactionCache != null)
+				transactionCache.put(HashKey.of(hash), stored);
+			return stored;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get all transactions relative to given addresses
+	 *
+	 * @param addresses An array of the addresses to fetch
+	 * @return a future completed with a {@link GetAddressesTxsResponse} Containing the transactions IDs corresponding to each addresses
+	 * @throws IllegalArgumentException if one of the given addresses is invalid
+	 */
+	private CompletableFuture<GetAddressesTxsResponse> getAddressesTransactions(String[] addresses, int perPage, int page, String type) {
+
+		//Check if every given address is valid, if not throw an illegalArgumentException
+		for(String address : addresses) {
+			if(!Utils.validateAddress(address, VirgoAPI.ADDR_IDENTIFIER))
+				throw new IllegalArgumentException(address + " is not a valid address");
+		}
+
+		HashSet<String> wanted = new HashSet<String>();
+		for(String address : addresses)
+			wanted.add(address);
+
+		//valid transactions container
+		ConcurrentHashMap<String, AddressTxs> addressesTxsMap = new ConcurrentHashMap<String, AddressTxs>();
+
+		Iterator<Provider> providers = api.getProvidersWatcher().getProvidersByScore().iterator();
+
+		return accumulate(providers, wanted, addressesTxsMap,
+				address -> "/address/"+address+"/"+type+"/"+perPage+"/"+page,
+				(address, body) -> AddressTxs.fromJSONStream(address, type, new JsonReader(body)), null, null).thenApply(v -> {
+					if(addressesTxsMap.size() != 0)
+						return new GetAddressesTxsResponse(ResponseCode.OK, new HashMap<String, AddressTxs>(addressesTxsMap));
+
+					//If nothing has been returned yet return 404 NOT FOUND error
+					return new GetAddressesTxsResponse(ResponseCode.NOT_FOUND, null);
+				});
+	}
+
+	/**
+	 * Get a page of an address's transactions
+	 * @return a future completed with the page, or null if no peer gave it
+	 */
+	CompletableFuture<AddressTxs> getAddressPage(String address, String type, int perPage, int page) {
+		return getAddressesTransactions(new String[] {address}, perPage, page, type)
+				.thenApply(resp -> resp.getResponseCode() == ResponseCode.OK ? resp.getAddressTxs(address) : null);
+	}
+
+	/**
+	 * Iterate lazily over the full history of an address, the next pages are fetched while the current one is consumed
+	 *
+	 * @param address the address to iterate on
+	 * @param type the kind of transactions to list, "txs", "inputs", "outputs" or "unspent"
+	 * @return an {@link AddressHistory} fetching pages of 100 transactions, 4 pages ahead
+	 * @throws IllegalArgumentException if the address or the type is invalid
+	 */
+	public AddressHistory getAddressHistory(String address, String type) {
+		return getAddressHistory(address, type, 100, 4);
+	}
+
+	/**
+	 * Iterate lazily over the full history of an address, the next pages are fetched while the current one is consumed
+	 *
+	 * @param address the address to iterate on
+	 * @param type the kind of transactions to list, "txs", "inputs", "outputs" or "unspent"
+	 * @param perPage the amount of transactions per page
+	 * @param prefetch the amount of pages requested ahead of the consumed one
+	 * @return an {@link AddressHistory} over the address's transactions
+	 * @throws IllegalArgumentException if one of the parameters is invalid
+	 */
+	public AddressHistory getAddressHistory(String address, String type, int perPage, int prefetch) {
+		if(!Utils.validateAddress(address, VirgoAPI.ADDR_IDENTIFIER))
+			throw new IllegalArgumentException(address + " is not a valid address");
+
+		switch(type) {
+		case "txs":
+		case "inputs":
+		case "outputs":
+		case "unspent":
+			break;
+			default:
+				throw new IllegalArgumentException(type + " is not a valid transactions type");
+		}
+
+		if(perPage <= 0)
+			throw new IllegalArgumentException(perPage + " is not a valid page size");
+
+		if(prefetch <= 0)
+			throw new IllegalArgumentException(prefetch + " is not a valid prefetch");
+
+		return new AddressHistory(this, address, type, perPage, prefetch);
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesOutputs(String[] addresses, int perPage, int page) {
+		return getAddressesTransactions(addresses, perPage, page, "outputs");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesOutputs(String[] addresses) {
+		return getAddressesTransactions(addresses, 100, 1, "outputs");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesInputs(String[] addresses, int perPage, int page) {
+		return getAddressesTransactions(addresses, perPage, page, "inputs");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesInputs(String[] addresses) {
+		return getAddressesTransactions(addresses, 100, 1, "inputs");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesUnspent(String[] addresses, int perPage, int page) {
+		return getAddressesTransactions(addresses, perPage, page, "unspent");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesUnspent(String[] addresses) {
+		return getAddressesTransactions(addresses, 100, 1, "unspent");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesTxs(String[] addresses, int perPage, int page) {
+		return getAddressesTransactions(addresses, perPage, page, "txs");
+	}
+
+	public CompletableFuture<GetAddressesTxsResponse> getAddressesTxs(String[] addresses) {
+		return getAddressesTransactions(addresses, 100, 1, "txs");
+	}
+
+	/**
+	 * Get given addresses balances (sent and received)
+	 * Will only return result from the most up-to-date peer
+	 *
+	 * @param addresses the addresses you want the balance of
+	 * @return a future completed with a {@link GetBalancesResponse} Containing the balances of each addresses
+	 * @throws IllegalArgumentException if one of the given addresses is invalid
+	 */
+	public CompletableFuture<GetBalancesResponse> getBalances(String[] addresses) {
+
+		//Check if every given address is valid, if not throw an illegalArgumentException
+		HashSet<String> addrs = new HashSet<String>();
+		for(String address : addresses) {
+			if(!Utils.validateAddress(address, VirgoAPI.ADDR_IDENTIFIER))
+				throw new IllegalArgumentException(address + " is not a valid address");
+
+			addrs.add(address);
+		}
+
+		Iterator<Provider> providers = api.getProvidersWatcher().getProvidersByScore().iterator();
+
+		return allFromOne(providers, addrs,
+				address -> "/address/"+address+"/balance",
+				(address, body) -> parseBalance(address, parseObject(body)),
+				"/addresses/balance", (address, reader) -> parseBalance(address, new JSONObject(reader.nextRawValue()))).thenApply(balances -> balances != null ? new GetBalancesResponse(ResponseCode.OK, balances) : new GetBalancesResponse(ResponseCode.NOT_FOUND, null));
+	}
+
+	/**
+	 * Get given beacons states
+	 *
+	 * @param beaconsHashes the hashes of the beacons you want the state of
+	 * @return a future completed with a {@link GetBeaconsStateResponse} Containing the states of each beacons
+	 */
+	public CompletableFuture<GetBeaconsStateResponse> getBeaconsState(Sha256Hash[] beaconsHashes) {
+		return beaconCacheReady(Arrays.asList(beaconsHashes)).thenCompose(v -> fetchBeaconsStates(beaconsHashes));
+	}
+
+	private CompletableFuture<GetBeaconsStateResponse> fetchBeaconsStates(Sha256Hash[] beaconsHashes) {
+		BeaconStateCache beaconCache = api.getBeaconStateCache();
+
+		HashKeyMap<BeaconState> cachedStates = new HashKeyMap<BeaconState>(beaconsHashes.length);
+		HashSet<Sha256Hash> wanted = new HashSet<Sha256Hash>();
+		for(Sha256Hash hash : beaconsHashes) {
+			BeaconState cached = beaconCache != null ? beaconCache.get(hash) : null;
+
+			if(cached != null)
+				cachedStates.put(hash, cached);
+			else
+				wanted.add(hash);
+		}
+
+		if(wanted.isEmpty())
+			return CompletableFuture.completedFuture(GetBeaconsStateResponse.of(ResponseCode.OK, cachedStates));
+
+		Iterator<Provider> providers = api.getProvidersWatcher().getProvidersByScore().iterator();
+
+		return allFromOne(providers, wanted,
+				hash -> "/beacon/"+hash.toString(),
+				(hash, body) -> BeaconState.fromJSON(hash, parseObject(body)),
+				"/beacons", (hash, reader) -> BeaconState.fromJSON(hash, new JSONObject(reader.nextRawValue())))
+				.thenApply(states -> {
+					if(states == null)
+						return GetBeaconsStateResponse.of(ResponseCode.NOT_FOUND, new HashKeyMap<BeaconState>());
+
+					states.forEach((hash, state) -> {
+						if(beaconCache != null)
+							beaconCache.put(state);
+
+						cachedStates.put(hash, state);
+					});
+
+					return GetBeaconsStateResponse.of(ResponseCode.OK, cachedStates);
+				});
+	}
+
+	/**
+	 * Get the states of the given beacons, each missing one being asked to the next peer, the ones no peer knows are left out
+	 * @return a future completed with the found states by beacon hash
+	 */
+	CompletableFuture<Map<Sha256Hash, BeaconState>> getAvailableBeaconsStates(Collection<Sha256Hash> beaconsHashes) {
+		return beaconCacheReady(beaconsHashes).thenCompose(v -> fetchAvailableBeaconsStates(beaconsHashes));
+	}
+
+	private CompletableFuture<Map<Sha256Hash, BeaconState>> fetchAvailableBeaconsStates(Collection<Sha256Hash> beaconsHashes) {
+		BeaconStateCache beaconCache = api.getBeaconStateCache();
+
+		ConcurrentHashMap<Sha256Hash, BeaconState> states = new ConcurrentHashMap<Sha256Hash, BeaconState>();
+
+		ArrayList<Sha256Hash> missing = new ArrayList<Sha256Hash>();
+		for(Sha256Hash hash : beaconsHashes) {
+			BeaconState cached = beaconCache != null ? beaconCache.get(hash) : null;
+
+			if(cached != null)
+				states.put(hash, cached);
+			else
+				missing.add(hash);
+		}
+
+		Function<BeaconState, BeaconState> cache = state -> {
+			if(state != null && beaconCache != null)
+				beaconCache.put(state);
+
+			return state;
+		};
+
+		return lookup(missing, states,
+				hash -> "/beacon/"+hash.toString(),
+				(hash, body) -> cache.apply(BeaconState.fromJSON(hash, parseObject(body))),
+				"/beacons", (hash, reader) -> cache.apply(BeaconState.fromJSON(hash, new JSONObject(reader.nextRawValue()))))
+				.thenApply(v -> states);
+	}
+
+	/**
+	 * @return a future completed once the beacon cache's chain height is fresh enough to serve the given beacons from cache
+	 */
+	private CompletableFuture<Void> beaconCacheReady(Collection<Sha256Hash> beaconsHashes) {
+		BeaconStateCache beaconCache = api.getBeaconStateCache();
+		if(beaconCache == null || !beaconCache.isHeightStale())
+			return CompletableFuture.completedFuture(null);
+
+		for(Sha256Hash hash : beaconsHashes)
+			if(beaconCache.contains(hash))
+				return refreshChainHeight(beaconCache);
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Refresh the beacon cache's chain height by fetching the state of the latest beacon, concurrent calls share the same refresh.
+	 * A failed refresh leaves the previous chain height
+	 */
+	private synchronized CompletableFuture<Void> refreshChainHeight(BeaconStateCache beaconCache) {
+		if(heightRefresh != null && !heightRefresh.isDone())
+			return heightRefresh;
+
+		heightRefresh = getLatestBeacons(1).thenCompose(resp -> {
+			if(resp.getResponseCode() != ResponseCode.OK)
+				return CompletableFuture.completedFuture((BeaconState) null);
+
+			Sha256Hash top = resp.getBeacons().get(0);
+			return firstValid("/beacon/"+top.toString(), body -> BeaconState.fromJSON(top, parseObject(body)));
+		}).handle((state, e) -> {
+			if(state != null)
+				beaconCache.put(state);
+
+			return null;
+		});
+
+		return heightRefresh;
+	}
+
+	/**
+	 * Get given transactions states (Status, stability, outputs states and values)<br>
+	 * Every state is requested concurrently, each missing one is immediately asked to the next peer.
+	 * Peers supporting batched lookups are asked for many states per request.
+	 * If one of the transactions is known to be missing from every peer the request fails without reaching them.
+	 * If the states cache is enabled states may be served stale, pending ones for up to the pending TTL
+	 * and confirmed ones' outputs spending for up to 10 pending TTLs
+	 *
+	 * @param txsHashes the hashes of the transactions you want the state of
+	 * @return a future completed with a {@link GetTxsStateResponse} Containing the states of each transactions
+	 */
+	public CompletableFuture<GetTxsStateResponse> getTxsState(Sha256Hash[] txsHashes) {
+		HashSet<Sha256Hash> wanted = new HashSet<Sha256Hash>();
+		for(Sha256Hash hash : txsHashes)
+			wanted.add(hash);
+
+		//a single unknown transaction makes the whole request fail
+		for(Sha256Hash hash : wanted)
+			if(isKnownMissing("/tx/"+hash.toString()+"/state"))
+				return CompletableFuture.completedFuture(GetTxsStateResponse.of(ResponseCode.NOT_FOUND, new HashKeyMap<TransactionState>()));
+
+		return getAvailableTxsStates(wanted).thenApply(states -> {
+			if(states.size() == wanted.size())
+				return GetTxsStateResponse.of(ResponseCode.OK, new HashKeyMap<TransactionState>(states));
+
+			return GetTxsStateResponse.of(ResponseCode.NOT_FOUND, new HashKeyMap<TransactionState>());
+		});
+	}
+
+	/**
+	 * Get the states of the given transactions, the ones no peer knows are left out
+	 * @return a future completed with the found states by transaction hash
+	 */
+	CompletableFuture<Map<Sha256Hash, TransactionState>> getAvailableTxsStates(Collection<Sha256Hash> txsHashes) {
+		TransactionStateCache stateCache = api.getTransactionStateCache();
+
+		ConcurrentHashMap<Sha256Hash, TransactionState> states = new ConcurrentHashMap<Sha256Hash, TransactionState>();
+
+		//serve still fresh states from cache, their freshness depends on their status and outputs
+		ArrayList<Sha256Hash> missing = new ArrayList<Sha256Hash>();
+		for(Sha256Hash hash : txsHashes) {
+			TransactionState cached = stateCache != null ? stateCache.get(hash) : null;
+
+			if(cached != null)
+				states.put(hash, cached);
+			else if(!isKnownMissing("/tx/"+hash.toString()+"/state"))
+				missing.add(hash);
+		}
+
+		BatchDecoder<Sha256Hash, TransactionState> stateDecoder = (hash, reader) -> {
+			TransactionState state = TransactionState.fromJSONStream(hash, reader);
+
+			if(state != null && stateCache != null)
+				stateCache.put(state);
+
+			return state;
+		};
+
+		return lookup(missing, states,
+				hash -> "/tx/"+hash.toString()+"/state",
+				(hash, body) -> stateDecoder.decode(hash, new JsonReader(body)),
+				"/txs/state", stateDecoder)
+				.thenApply(v -> {
+					recordMissing(missing, states, hash -> "/tx/"+hash.toString()+"/state");
+					return states;
+				});
+	}
+
+	/**
+	 * Get all neccessary informations for proof of work mining
+	 * @return a future completed with a {@link GetPoWInformationsResponse} Containing the informations (recommanded parent beacon, randomX key, difficulty and parent transactions
+	 */
+	public CompletableFuture<GetPoWInformationsResponse> getPowInformations() {
+		BeaconStateCache beaconCache = api.getBeaconStateCache();
+
+		return firstValid("/work", body -> {
+			JSONObject respJSON = parseObject(body);
+
+			JSONArray parentsJSON = respJSON.getJSONArray("parentTxs");
+
+			ArrayList<Sha256Hash> parents = new ArrayList<Sha256Hash>();
+			for(int i = 0; i < parentsJSON.length(); i++)
+				parents.add(new Sha256Hash(parentsJSON.getString(i)));
+
+			Sha256Hash parentBeacon = new Sha256Hash(respJSON.getString("parentBeacon"));
+
+			//the recommended parent beacon is the top of the chain
+			if(beaconCache != null)
+				beaconCache.onTip(parentBeacon);
+
+			return new GetPoWInformationsResponse(ResponseCode.OK,
+					parentBeacon,
+					new Sha256Hash(respJSON.getString("key")),
+					new BigInteger(respJSON.getString("difficulty")),
+					parents
+					);
+		}).thenApply(informations -> informations != null ? informations : new GetPoWInformationsResponse(ResponseCode.NOT_FOUND, null, null, BigInteger.ONE, null));
+	}
+
+	/**
+	 * Get proof of work mining informations, served from the background refreshed snapshot if it's recent enough
+	 * @param maxAge the maximum age of the snapshot in milliseconds, a fresh request is made if older or if snapshots are disabled
+	 * @return a future completed with a {@link GetPoWInformationsResponse} Containing the informations
+	 */
+	public CompletableFuture<GetPoWInformationsResponse> getPowInformations(long maxAge) {
+		SnapshotRefresher<GetPoWInformationsResponse> refresher = api.getWorkRefresher();
+		return refresher != null ? refresher.get(maxAge) : getPowInformations();
+	}
+
+	/**
+	 * Broadcast a transaction to the network<br>
+	 * The transaction is sent to every provider concurrently, the returned future completes as soon as the configured quorum
+	 * of providers accepted it (or all of them if there are less providers). Remaining deliveries keep running in the background.
+	 *
+	 * @param transaction the transaction to broadcast in form of JSON Object
+	 * @return a future completed with a {@link BroadcastResponse} containing the delivery report
+	 */
+	public CompletableFuture<BroadcastResponse> broadcastTransaction(JSONObject transaction) {
+		String data = transaction.toString();
+		List<Provider> providers = api.getProvidersWatcher().getProvidersByScore();
+
+		//the inputs are about to get a new claimer, their cached states are outdated
+		forgetInputsStates(transaction);
+
+		//the transaction may have been looked up before it existed, forget these misses
+		Sha256Hash hash = null;
+		try {
+			Transaction tx = Transaction.fromJSONObject(transaction);
+			if(tx != null)
+				hash = tx.getHash();
+		}catch(RuntimeException e) {}
+		
+		Sha256Hash txHash = hash;
+		forgetMisses(txHash, providers);
+
+		int quorum = Math.max(1, Math.min(broadcastQuorum, providers.size()));
+
+		ConcurrentHashMap<String, ResponseCode> deliveries = new ConcurrentHashMap<String, ResponseCode>();
+		CompletableFuture<Void> completion = new CompletableFuture<Void>();
+		CompletableFuture<BroadcastResponse> result = new CompletableFuture<BroadcastResponse>();
+
+		if(providers.isEmpty()) {
+			completion.complete(null);
+			return CompletableFuture.completedFuture(new BroadcastResponse(ResponseCode.ERROR, deliveries, 0, quorum, completion));
+		}
+
+		AtomicInteger accepted = new AtomicInteger();
+		AtomicInteger finished = new AtomicInteger();
+
+		for(Provider provider : providers) {
+			provider.postAsync("/tx", data).whenComplete((resp, e) -> {
+				ResponseCode code = resp != null ? resp.getResponseCode() : ResponseCode.ERROR;
+				deliveries.put(provider.getHostname(), code);
+
+				//a lookup may have recorded a miss while the provider was receiving the transaction
+				if(code == ResponseCode.OK)
+					forgetMisses(txHash, Collections.singletonList(provider));
+
+				//states fetched while the deliveries were running may predate the new claimer
+				if(code == ResponseCode.OK && accepted.incrementAndGet() == quorum) {
+					forgetInputsStates(transaction);
+					result.complete(new BroadcastResponse(ResponseCode.OK, deliveries, providers.size(), quorum, completion));
+				}
+
+				if(finished.incrementAndGet() == providers.size()) {
+					forgetInputsStates(transaction);
+
+					//no-op if the quorum has already been reached
+					result.complete(new BroadcastResponse(ResponseCode.ERROR, deliveries, providers.size(), quorum, completion));
+					completion.complete(null);
+				}
+			});
+		}
+
+		return result;
+	}
+
+	/**
+	 * Remove the cached states of a transaction's inputs
+	 */
+	private void forgetInputsStates(JSONObject transaction) {
+		TransactionStateCache stateCache = api.getTransactionStateCache();
+		if(stateCache == null || !transaction.has("inputs"))
+			return;
+		
+		JSONArray inputs = transaction.getJSONArray("inputs");
+		for(int i = 0; i < inputs.length(); i++) {
+			try {
+				stateCache.invalidate(new Sha256Hash(inputs.getString(i)));
+			}catch(RuntimeException e) {}
+		}
+	}
+
+	/**
+	 * Forget the recorded misses of a transaction and of its state, globally and for the given providers
+	 */
+	private void forgetMisses(Sha256Hash hash, List<Provider> providers) {
+		NegativeCache negativeCache = api.getNegativeCache();
+		if(negativeCache == null || hash == null)
+			return;
+		
+		String[] methods = {"/tx/"+hash.toString(), "/tx/"+hash.toString()+"/state"};
+		for(String method : methods) {
+			negativeCache.invalidate(method);
+			for(Provider provider : providers)
+				negativeCache.invalidate(provider.getHostname(), method);
+		}
+	}
+
+	/**
+	 * Send a GET request to a provider, its body is decoded as it is received<br>
+	 * Concurrent identical requests share a single HTTP request, each method being always decoded the same way.
+	 * Methods the provider recently answered as not found are not sent again until the negative cache forgets them.
+	 * Cancelling the returned future stops the request once no other caller waits for it
+	 * @return a future completed with the decoded value, or null if the request failed or the response is invalid
+	 */
+	private <T> CompletableFuture<T> request(Provider provider, String method, BodyDecoder<T> decoder) {
+		NegativeCache negativeCache = api.getNegativeCache();
+		if(negativeCache != null && negativeCache.isMissing(provider.getHostname(), method))
+			return CompletableFuture.completedFuture(null);
+
+		if(flights == null)
+			return send(provider, method, decoder);
+
+		return flights.run(provider.getHostname() + method, () -> send(provider, method, decoder));
+	}
+
+	private <T> CompletableFuture<T> send(Provider provider, String method, BodyDecoder<T> decoder) {
+		CompletableFuture<DecodedResponse<T>> request = provider.getAsync(method, decoder);
+
+		CompletableFuture<T> decoded = request.handle((resp, e) -> {
+			if(e != null)
+				return null;
+
+			if(resp.getResponseCode() == ResponseCode.NOT_FOUND) {
+				NegativeCache negativeCache = api.getNegativeCache();
+				if(negativeCache != null)
+					negativeCache.recordMiss(provider.getHostname(), method);
+			}
+
+			if(resp.getResponseCode() != ResponseCode.OK)
+				return null;
+
+			return resp.getValue();
+		});
+
+		decoded.whenComplete((result, e) -> {
+			if(decoded.isCancelled())
+				request.cancel(true);
+		});
+
+		return decoded;
+	}
+
+	/**
+	 * @return true if no peer recently knew the given method
+	 */
+	private boolean isKnownMissing(String method) {
+		NegativeCache negativeCache = api.getNegativeCache();
+		return negativeCache != null && negativeCache.isMissing(method);
+	}
+
+	/**
+	 * Record as globally missing the keys left without result that every current peer answered as not found,
+	 * keys that failed because of a timeout or an invalid response are not recorded
+	 */
+	private <K> void recordMissing(Collection<K> keys, Map<K, ?> results, Function<K, String> method) {
+		NegativeCache negativeCache = api.getNegativeCache();
+		if(negativeCache == null)
+			return;
+
+		List<Provider> providers = api.getProvidersWatcher().getProvidersByScore();
+		if(providers.isEmpty())
+			return;
+
+		for(K key : keys) {
+			if(results.containsKey(key))
+				continue;
+
+			String keyMethod = method.apply(key);
+
+			boolean missingEverywhere = true;
+			for(Provider provider : providers) {
+				if(!negativeCache.isMissing(provider.getHostname(), keyMethod)) {
+					missingEverywhere = false;
+					break;
+				}
+			}
+
+			if(missingEverywhere)
+				negativeCache.recordMiss(keyMethod);
+		}
+	}
+
+	/**
+	 * Send a request to the provider at the given index<br>
+	 * If hedging is enabled and the request takes longer than usual for this provider, the same request is sent to the next one.
+	 * The first valid response wins and the other request is cancelled: its response body is closed, freeing its pool slot,
+	 * but on Java versions before 16 the provider may still finish sending it.
+	 * @param hedgeSlot The fan-out slot on the next provider the hedge must take, null if the request isn't part of a fan-out
+	 * @return a future completed with the first valid parsed value, or null if none of the sent requests gave one
+	 */
+	private <T> CompletableFuture<T> hedgedRequest(List<Provider> providers, int index, String method, BodyDecoder<T> decoder, FanOut<?, ?>.HedgeSlot hedgeSlot) {
+		Provider provider = providers.get(index);
+		CompletableFuture<T> primary = request(provider, method, decoder);
+
+		if(hedging == null || index + 1 >= providers.size())
+			return primary;
+
+		hedging.onRequest();
+
+		long delay = hedging.getDelay(provider);
+		if(delay < 0)
+			return primary;
+
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		AtomicInteger running = new AtomicInteger(1);
+
+		BiConsumer<T, Throwable> settle = (value, e) -> {
+			if(value != null)
+				result.complete(value);
+			else if(running.decrementAndGet() == 0)
+				result.complete(null);
+		};
+
+		primary.whenComplete(settle);
+		result.whenComplete((value, e) -> primary.cancel(true));
+
+		CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor).execute(() -> {
+			if(result.isDone() || (hedgeSlot != null && !hedgeSlot.tryAcquire()))
+				return;
+
+			if(!hedging.tryHedge()) {
+				if(hedgeSlot != null)
+					hedgeSlot.release();
+				return;
+			}
+
+			running.incrementAndGet();
+
+			//the primary may have failed in between, leaving nothing to hedge
+			if(result.isDone()) {
+				if(hedgeSlot != null)
+					hedgeSlot.release();
+				return;
+			}
+
+			CompletableFuture<T> hedge = request(providers.get(index + 1), method, decoder);
+			hedge.whenComplete((value, e) -> {
+				if(hedgeSlot != null)
+					hedgeSlot.release();
+
+				settle.accept(value, e);
+			});
+			result.whenComplete((value, e) -> hedge.cancel(true));
+		});
+
+		return result;
+	}
+
+	/**
+	 * Loop through all peers, starting from the one with highest score (probably most up-to-date),
+	 * until one of them gives a valid response
+	 * @return a future completed with the first valid parsed response, or null if none has been found
+	 */
+	private <T> CompletableFuture<T> firstValid(String method, BodyDecoder<T> decoder) {
+		return firstValid(api.getProvidersWatcher().getProvidersByScore(), 0, method, decoder);
+	}
+
+	private <T> CompletableFuture<T> firstValid(List<Provider> providers, int index, String method, BodyDecoder<T> decoder) {
+		if(index >= providers.size())
+			return CompletableFuture.completedFuture(null);
+
+		return hedgedRequest(providers, index, method, decoder, null).thenCompose(result -> {
+			if(result != null)
+				return CompletableFuture.completedFuture(result);
+
+			return firstValid(providers, index + 1, method, decoder);
+		});
+	}
+
+	/**
+	 * Ask every key to a single peer at once, starting from the one with highest score,
+	 * until one of them gives a valid response for all of them
+	 * @return a future completed with the results by key, or null if no peer knew them all
+	 */
+	private <K, T> CompletableFuture<HashMap<K, T>> allFromOne(Iterator<Provider> providers, Collection<K> keys, Function<K, String> method, KeyDecoder<K, T> decoder,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		if(!providers.hasNext())
+			return CompletableFuture.completedFuture(null);
+
+		ConcurrentHashMap<K, T> results = new ConcurrentHashMap<K, T>();
+
+		return requestKeys(providers.next(), keys, results, method, decoder, batchMethod, batchDecoder).thenCompose(v -> {
+			if(results.size() == keys.size())
+				return CompletableFuture.completedFuture(new HashMap<K, T>(results));
+
+			return allFromOne(providers, keys, method, decoder, batchMethod, batchDecoder);
+		});
+	}
+
+	/**
+	 * Concurrently request every key, starting from the peer with highest score,
+	 * keys a peer doesn't know are re-queued to the next one
+	 * @return a future completed once done, results are put in the given map
+	 */
+	private <K, T> CompletableFuture<Void> lookup(Collection<K> keys, Map<K, T> results, Function<K, String> method, KeyDecoder<K, T> decoder,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		return fanOut(api.getProvidersWatcher().getProvidersByScore(), keys, results, method, decoder, batchMethod, batchDecoder);
+	}
+
+	/**
+	 * Request every key to the given peers, by order of preference, without exceeding the parallelism per peer.
+	 * Peers supporting batched lookups are sent batches of keys when a batch method is given, the others one key per request
+	 * @return a future completed once done, results are put in the given map
+	 */
+	private <K, T> CompletableFuture<Void> fanOut(List<Provider> providers, Collection<K> keys, Map<K, T> results, Function<K, String> method, KeyDecoder<K, T> decoder,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		int[] batchLimits = new int[providers.size()];
+		if(batchMethod != null)
+			for(int i = 0; i < providers.size(); i++)
+				batchLimits[i] = Math.min(batchSize, providers.get(i).getBatchLimit());
+
+		return new FanOut<K, T>(providers, providerParallelism,
+				(index, key, hedgeSlot) -> hedgedRequest(providers, index, method.apply(key), body -> decoder.decode(key, body), hedgeSlot),
+				batchLimits, (index, batch) -> requestBatch(providers.get(index), batch, method, batchMethod, batchDecoder),
+				results).run(keys);
+	}
+
+	/**
+	 * Ask the keys still missing from results to the next peer, until all are found or no peer is left
+	 * @return a future completed once done, results are put in the given map
+	 */
+	private <K, T> CompletableFuture<Void> accumulate(Iterator<Provider> providers, Collection<K> keys, Map<K, T> results, Function<K, String> method, KeyDecoder<K, T> decoder,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		ArrayList<K> missing = new ArrayList<K>();
+		for(K key : keys)
+			if(!results.containsKey(key))
+				missing.add(key);
+
+		if(missing.isEmpty() || !providers.hasNext())
+			return CompletableFuture.completedFuture(null);
+
+		return requestKeys(providers.next(), missing, results, method, decoder, batchMethod, batchDecoder)
+				.thenCompose(v -> accumulate(providers, keys, results, method, decoder, batchMethod, batchDecoder));
+	}
+
+	/**
+	 * Request every key to the given provider, see {@link #fanOut}
+	 */
+	private <K, T> CompletableFuture<Void> requestKeys(Provider provider, Collection<K> keys, Map<K, T> results, Function<K, String> method, KeyDecoder<K, T> decoder,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		return fanOut(Collections.singletonList(provider), keys, results, method, decoder, batchMethod, batchDecoder);
+	}
+
+	/**
+	 * Post a batch of keys to the given provider, it answers with a JSON object mapping each known key to its value<br>
+	 * Keys left out of a valid answer are recorded as missing from this provider, keys already known as missing aren't sent
+	 * @return a future completed with the found values by key, NOT_FOUND if the provider doesn't serve the batch method
+	 */
+	private <K, T> CompletableFuture<DecodedResponse<Map<K, T>>> requestBatch(Provider provider, List<K> keys, Function<K, String> method,
+			String batchMethod, BatchDecoder<K, T> batchDecoder) {
+		NegativeCache negativeCache = api.getNegativeCache();
+
+		HashMap<String, K> keysByName = new HashMap<String, K>();
+		ArrayList<String> names = new ArrayList<String>();
+		for(K key : keys) {
+			if(negativeCache != null && negativeCache.isMissing(provider.getHostname(), method.apply(key)))
+				continue;
+
+			String name = key.toString();
+			keysByName.put(name, key);
+			names.add(name);
+		}
+
+		if(names.isEmpty())
+			return CompletableFuture.completedFuture(new DecodedResponse<Map<K, T>>(ResponseCode.OK, new HashMap<K, T>()));
+
+		BodyDecoder<Map<K, T>> decoder = body -> {
+			HashMap<K, T> found = new HashMap<K, T>();
+			JsonReader reader = new JsonReader(body);
+
+			reader.beginObject();
+			while(reader.hasNext()) {
+				K key = keysByName.get(reader.nextName());
+
+				if(key == null || reader.peek() == JsonReader.Token.NULL) {
+					reader.skipValue();
+					continue;
+				}
+
+				T value = batchDecoder.decode(key, reader);
+				if(value != null)
+					found.put(key, value);
+			}
+			reader.endObject();
+
+			return found;
+		};
+
+		return provider.postAsync(batchMethod, JsonReader.toJSONArray(names), decoder).thenApply(resp -> {
+			if(resp.getResponseCode() == ResponseCode.OK && resp.getValue() != null && negativeCache != null)
+				for(K key : keysByName.values())
+					if(!resp.getValue().containsKey(key))
+						negativeCache.recordMiss(provider.getHostname(), method.apply(key));
+
+			return resp;
+		});
+	}
+
+	/**
+	 * Decode a JSON array of hashes
+	 * @return the hashes, or null if empty
+	 */
+	private static ArrayList<Sha256Hash> parseHashes(InputStream body) throws IOException {
+		ArrayList<Sha256Hash> hashes = new ArrayList<Sha256Hash>();
+		JsonReader reader = new JsonReader(body);
+
+		reader.beginArray();
+		while(reader.hasNext()) {
+			try {
+				hashes.add(new Sha256Hash(reader.nextString()));
+			}catch(IllegalArgumentException e) {
+				break;
+			}
+		}
+
+		if(hashes.isEmpty())
+			return null;
+
+		return hashes;
+	}
+
+	/**
+	 * Read an address balance
+	 * @return the balance, or null if it's not the given address one
+	 */
+	private static AddressBalance parseBalance(String address, JSONObject balance) {
+		if(!address.equals(balance.getString("address")))
+			return null;
+
+		return new AddressBalance(address, balance.getLong("received"), balance.getLong("sent"));
+	}
+
+	/**
+	 * Read a small JSON object directly from the response stream
+	 */
+	private static JSONObject parseObject(InputStream body) {
+		return new JSONObject(new JSONTokener(new InputStreamReader(body, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Decodes the response body given for a key, returns null if invalid
+	 */
+	private interface KeyDecoder<K, T> {
+		T decode(K key, InputStream body) throws IOException;
+	}
+
+	/**
+	 * Decodes the value given for a key in a batched response, returns null if invalid
+	 */
+	private interface BatchDecoder<K, T> {
+		T decode(K key, JsonReader reader) throws IOException;
+	}
+
+}
@@ -0,0 +1,307 @@
+package io.virgo.virgoAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.virgo.virgoAPI.cache.HashKeyMap;
+import io.virgo.virgoAPI.data.BeaconState;
+import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Local index of the beacon chain, kept in sync with providers
+ * <br><br>
+ * Each round gets the latest beacons and asks again the states of the main chain's most recent ones,
+ * then follows the parent beacons backwards until the chain is complete down to the configured height.
+ * Parents are only known once their child is, so each missing parent is requested as soon as its child is indexed,
+ * all gaps of the chain being filled concurrently, and states are fetched in lookups of up to 100 beacons,
+ * each beacon missing from a peer being asked to the next one, so an unknown beacon doesn't hold back the others.<br>
+ * Once synced, the main chain beacon at any height, or within a range of heights, is found locally.
+ * A reorg is reported to listeners when the main chain beacon at a height changes or leaves the main chain.
+ */
+public class BeaconChainSync implements AutoCloseable {
+
+	private static final int LOOKUP_SIZE = 100;
+	private static final int HOPS_PER_ROUND = 1000;
+
+	private AsyncVirgoAPI async;
+	private ScheduledExecutorService scheduler;
+	private long fromHeight;
+	private long interval;
+	private int window;
+
+	private TreeMap<Long, Sha256Hash> mainChain = new TreeMap<Long, Sha256Hash>();
+	private HashKeyMap<BeaconState> states = new HashKeyMap<BeaconState>();
+	private HashSet<Sha256Hash> missingParents = new HashSet<Sha256Hash>();
+
+	private CopyOnWriteArrayList<Consumer<Reorg>> reorgListeners = new CopyOnWriteArrayList<Consumer<Reorg>>();
+	private volatile boolean closed = false;
+
+	BeaconChainSync(AsyncVirgoAPI async, ScheduledExecutorService scheduler, long fromHeight, long interval, int window) {
+		this.async = async;
+		this.scheduler = scheduler;
+		this.fromHeight = fromHeight;
+		this.interval = interval;
+		this.window = window;
+	}
+
+	void start() {
+		scheduler.execute(this::poll);
+	}
+
+	/**
+	 * Run a round, the next one is scheduled once it's done
+	 */
+	private void poll() {
+		if(closed)
+			return;
+
+		round().whenComplete((v, e) -> {
+			try {
+				scheduler.schedule(this::poll, interval, TimeUnit.MILLISECONDS);
+			}catch(Exception rejected) {}
+		});
+	}
+
+	/**
+	 * Stop syncing, the index stays readable
+	 */
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * @param listener called from the sync thread with each detected reorg
+	 */
+	public void addReorgListener(Consumer<Reorg> listener) {
+		reorgListeners.add(listener);
+	}
+
+	public void removeReorgListener(Consumer<Reorg> listener) {
+		reorgListeners.remove(listener);
+	}
+
+	/**
+	 * @return The hash of the main chain beacon at the given height, or null if not indexed
+	 */
+	public synchronized Sha256Hash getBeacon(long height) {
+		return mainChain.get(height);
+	}
+
+	/**
+	 * @return The last fetched state of the given beacon, or null if not indexed
+	 */
+	public synchronized BeaconState getState(Sha256Hash hash) {
+		return states.get(hash);
+	}
+
+	/**
+	 * @return The last fetched states of the indexed main chain beacons between the given heights, included, by ascending height
+	 */
+	public synchronized List<BeaconState> getMainChain(long fromHeight, long toHeight) {
+		ArrayList<BeaconState> range = new ArrayList<BeaconState>();
+		if(toHeight < fromHeight)
+			return range;
+
+		for(Sha256Hash hash : mainChain.subMap(fromHeight, true, toHeight, true).values())
+			range.add(states.get(hash));
+
+		return range;
+	}
+
+	/**
+	 * @return Whether the given beacon is indexed as a main chain member
+	 */
+	public synchronized boolean isMainChainMember(Sha256Hash hash) {
+		BeaconState state = states.get(hash);
+		return state != null && hash.equals(mainChain.get(state.getHeight()));
+	}
+
+	/**
+	 * @return The height of the highest indexed main chain beacon, -1 if none
+	 */
+	public synchronized long getHeight() {
+		return mainChain.isEmpty() ? -1 : mainChain.lastKey();
+	}
+
+	/**
+	 * @return The height of the lowest indexed main chain beacon, -1 if none
+	 */
+	public synchronized long getLowestHeight() {
+		return mainChain.isEmpty() ? -1 : mainChain.firstKey();
+	}
+
+	/**
+	 * @return Whether the main chain is indexed without gaps down to the configured height
+	 */
+	public synchronized boolean isSynced() {
+		return !mainChain.isEmpty() && missingParents.isEmpty();
+	}
+
+	/**
+	 * Refresh the chain's top then fill its gaps
+	 * @return a future completed once the round is done
+	 */
+	CompletableFuture<Void> round() {
+		return async.getLatestBeacons(window).thenCompose(resp -> {
+			if(resp.getResponseCode() != ResponseCode.OK)
+				return CompletableFuture.completedFuture(0);
+
+			HashSet<Sha256Hash> wanted = new HashSet<Sha256Hash>(resp.getBeacons());
+
+			//recent main chain beacons may have left it without showing in latest beacons anymore
+			synchronized(this) {
+				if(!mainChain.isEmpty())
+					wanted.addAll(mainChain.tailMap(mainChain.lastKey() - window, false).values());
+			}
+
+			return fetch(wanted);
+		}).thenCompose(v -> backfill(HOPS_PER_ROUND));
+	}
+
+	/**
+	 * Request the missing parents, then the parents they reveal, until none is missing or no progress is made
+	 */
+	private CompletableFuture<Void> backfill(int hops) {
+		ArrayList<Sha256Hash> wanted;
+		synchronized(this) {
+			wanted = new ArrayList<Sha256Hash>(missingParents);
+		}
+
+		if(hops <= 0 || wanted.isEmpty())
+			return CompletableFuture.completedFuture(null);
+
+		return fetch(wanted).thenCompose(indexed -> indexed > 0 ? backfill(hops - 1) : CompletableFuture.completedFuture(null));
+	}
+
+	/**
+	 * Fetch the given beacons states concurrently and index them
+	 * @return a future completed with the amount of indexed states
+	 */
+	private CompletableFuture<Integer> fetch(Collection<Sha256Hash> hashes) {
+		ArrayList<CompletableFuture<Integer>> lookups = new ArrayList<CompletableFuture<Integer>>();
+		ArrayList<Sha256Hash> chunk = new ArrayList<Sha256Hash>();
+
+		for(Sha256Hash hash : hashes) {
+			chunk.add(hash);
+
+			if(chunk.size() == LOOKUP_SIZE) {
+				lookups.add(lookup(chunk));
+				chunk = new ArrayList<Sha256Hash>();
+			}
+		}
+
+		if(!chunk.isEmpty())
+			lookups.add(lookup(chunk));
+
+		return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[lookups.size()])).thenApply(v -> {
+			int indexed = 0;
+			for(CompletableFuture<Integer> lookup : lookups)
+				indexed += lookup.join();
+
+			return indexed;
+		});
+	}
+
+	private CompletableFuture<Integer> lookup(List<Sha256Hash> hashes) {
+		return async.getAvailableBeaconsStates(hashes).handle((states, e) -> {
+			if(states == null)
+				return 0;
+
+			ArrayList<Reorg> reorgs = new ArrayList<Reorg>();
+			int indexed = 0;
+
+			for(BeaconState state : states.values()) {
+				if(state == null)
+					continue;
+
+				index(state, reorgs);
+				indexed++;
+			}
+
+			for(Reorg reorg : reorgs)
+				for(Consumer<Reorg> listener : reorgListeners)
+					try {
+						listener.accept(reorg);
+					}catch(Exception listenerError) {}
+
+			return indexed;
+		});
+	}
+
+	/**
+	 * Record a beacon state, update the main chain and the parents it misses
+	 */
+	private synchronized void index(BeaconState state, List<Reorg> reorgs) {
+		Sha256Hash hash = state.getHash();
+		long height = state.getHeight();
+
+		states.put(hash, state);
+		missingParents.remove(hash);
+
+		if(!state.isMainChainMember()) {
+			if(hash.equals(mainChain.get(height))) {
+				mainChain.remove(height);
+				reorgs.add(new Reorg(height, hash, null));
+			}
+
+			return;
+		}
+
+		Sha256Hash previous = mainChain.put(height, hash);
+		if(previous != null && !previous.equals(hash))
+			reorgs.add(new Reorg(height, previous, hash));
+
+		//the indexed parent is missing or was replaced by a reorg
+		if(height > fromHeight && !state.getParentBeacon().equals(mainChain.get(height - 1)))
+			missingParents.add(state.getParentBeacon());
+	}
+
+	/**
+	 * A change of the main chain beacon at a height
+	 */
+	public static class Reorg {
+
+		private long height;
+		private Sha256Hash previous;
+		private Sha256Hash current;
+
+		public Reorg(long height, Sha256Hash previous, Sha256Hash current) {
+			this.height = height;
+			this.previous = previous;
+			this.current = current;
+		}
+
+		/**
+		 * @return The height of the replaced beacon
+		 */
+		public long getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return The beacon that left the main chain
+		 */
+		public Sha256Hash getPrevious() {
+			return previous;
+		}
+
+		/**
+		 * @return The beacon now on the main chain at this height, or null if not known yet
+		 */
+		public Sha256Hash getCurrent() {
+			return current;
+		}
+
+	}
+
+}
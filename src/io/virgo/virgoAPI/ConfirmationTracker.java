@@ -0,0 +1,240 @@
+package io.virgo.virgoAPI;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.virgo.virgoAPI.data.TransactionState;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Track transactions until they reach a target amount of confirmations
+ * <br><br>
+ * All tracked transactions share the same polling rounds: at each round the transactions due for a poll are asked in
+ * a single states lookup, capped to the configured round size, so the request rate stays flat whatever the amount of
+ * tracked transactions. A transaction is polled less often the more confirmations it has, up to the max interval.<br>
+ * Futures complete with the first state reaching their target, or exceptionally with a {@link RefusedException}
+ * once the transaction is refused. Cancelling a future stops tracking it.
+ */
+public class ConfirmationTracker {
+
+	private AsyncVirgoAPI async;
+	private ScheduledExecutorService scheduler;
+	private long interval;
+	private long maxInterval;
+	private int roundSize;
+
+	private ConcurrentHashMap<Sha256Hash, Tracked> tracked = new ConcurrentHashMap<Sha256Hash, Tracked>();
+	private boolean running = false;
+	private boolean stopped = false;
+
+	ConfirmationTracker(AsyncVirgoAPI async, ScheduledExecutorService scheduler, long interval, long maxInterval, int roundSize) {
+		this.async = async;
+		this.scheduler = scheduler;
+		this.interval = interval;
+		this.maxInterval = maxInterval;
+		this.roundSize = roundSize;
+	}
+
+	/**
+	 * Track a transaction until it reaches the given amount of confirmations
+	 * @param hash the hash of the transaction
+	 * @param targetConfirmations the wanted amount of confirmations
+	 * @return a future completed with the transaction's state once confirmed enough, cancelled if the tracker is stopped
+	 */
+	public CompletableFuture<TransactionState> track(Sha256Hash hash, int targetConfirmations) {
+		if(targetConfirmations < 0)
+			throw new IllegalArgumentException(targetConfirmations + " is not a valid confirmations target");
+
+		CompletableFuture<TransactionState> future = new CompletableFuture<TransactionState>();
+		Waiter waiter = new Waiter(targetConfirmations, future);
+
+		tracked.compute(hash, (key, entry) -> {
+			if(entry == null)
+				entry = new Tracked(hash);
+
+			entry.waiters.add(waiter);
+			entry.nextPoll = System.nanoTime();
+			return entry;
+		});
+
+		future.whenComplete((state, e) -> {
+			if(future.isCancelled())
+				removeWaiter(hash, waiter);
+		});
+
+		//stop() cancels the waiters added before it, the later ones are cancelled here
+		synchronized(this) {
+			if(stopped) {
+				future.cancel(false);
+				return future;
+			}
+		}
+
+		start();
+		return future;
+	}
+
+	/**
+	 * @return The amount of tracked transactions
+	 */
+	public int size() {
+		return tracked.size();
+	}
+
+	private synchronized void start() {
+		if(running || stopped)
+			return;
+
+		running = true;
+		scheduler.execute(this::poll);
+	}
+
+	/**
+	 * Run a round, the next one is scheduled once it's done
+	 */
+	private void poll() {
+		synchronized(this) {
+			if(stopped) {
+				running = false;
+				return;
+			}
+		}
+
+		round().whenComplete((v, e) -> {
+			try {
+				scheduler.schedule(this::poll, interval, TimeUnit.MILLISECONDS);
+			}catch(Exception rejected) {}
+		});
+	}
+
+	void stop() {
+		synchronized(this) {
+			stopped = true;
+		}
+
+		for(Tracked entry : tracked.values())
+			for(Waiter waiter : entry.waiters)
+				waiter.future.cancel(false);
+	}
+
+	/**
+	 * Poll the transactions due for it, the most overdue first
+	 * @return a future completed once the round is done
+	 */
+	CompletableFuture<Void> round() {
+		long now = System.nanoTime();
+
+		ArrayList<Tracked> due = new ArrayList<Tracked>();
+		for(Tracked entry : tracked.values())
+			if(now - entry.nextPoll >= 0)
+				due.add(entry);
+
+		if(due.isEmpty())
+			return CompletableFuture.completedFuture(null);
+
+		if(due.size() > roundSize) {
+			due.sort(Comparator.comparingLong(entry -> entry.nextPoll - now));
+			due = new ArrayList<Tracked>(due.subList(0, roundSize));
+		}
+
+		ArrayList<Sha256Hash> hashes = new ArrayList<Sha256Hash>();
+		for(Tracked entry : due)
+			hashes.add(entry.hash);
+
+		List<Tracked> polled = due;
+		return async.getAvailableTxsStates(hashes).thenAccept(states -> update(polled, states));
+	}
+
+	private void update(List<Tracked> polled, Map<Sha256Hash, TransactionState> states) {
+		long now = System.nanoTime();
+
+		for(Tracked entry : polled) {
+			TransactionState state = states.get(entry.hash);
+
+			//not propagated yet
+			if(state == null) {
+				entry.nextPoll = now + interval * 1000000;
+				continue;
+			}
+
+			if(state.getStatus().isRefused()) {
+				for(Waiter waiter : entry.waiters)
+					waiter.future.completeExceptionally(new RefusedException(state));
+			}else if(state.getStatus().isConfirmed()) {
+				for(Waiter waiter : entry.waiters)
+					if(state.getConfirmations() >= waiter.target)
+						waiter.future.complete(state);
+			}
+
+			long delay = Math.min(maxInterval, interval * (1 + Math.max(0, state.getConfirmations())));
+			entry.nextPoll = now + delay * 1000000;
+
+			tracked.computeIfPresent(entry.hash, (key, current) -> {
+				current.waiters.removeIf(waiter -> waiter.future.isDone());
+				return current.waiters.isEmpty() ? null : current;
+			});
+		}
+	}
+
+	private void removeWaiter(Sha256Hash hash, Waiter waiter) {
+		tracked.computeIfPresent(hash, (key, entry) -> {
+			entry.waiters.remove(waiter);
+			return entry.waiters.isEmpty() ? null : entry;
+		});
+	}
+
+	private static class Tracked {
+
+		private Sha256Hash hash;
+		private volatile long nextPoll;
+		private List<Waiter> waiters = new CopyOnWriteArrayList<Waiter>();
+
+		private Tracked(Sha256Hash hash) {
+			this.hash = hash;
+		}
+
+	}
+
+	private static class Waiter {
+
+		private long target;
+		private CompletableFuture<TransactionState> future;
+
+		private Waiter(long target, CompletableFuture<TransactionState> future) {
+			this.target = target;
+			this.future = future;
+		}
+
+	}
+
+	/**
+	 * Exceptional completion of a tracked transaction that has been refused
+	 */
+	public static class RefusedException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		private TransactionState state;
+
+		public RefusedException(TransactionState state) {
+			super("Transaction " + state.getHash() + " has been refused");
+			this.state = state;
+		}
+
+		/**
+		 * @return The refused transaction's state
+		 */
+		public TransactionState getState() {
+			return state;
+		}
+
+	}
+
+}
@@ -0,0 +1,228 @@
+package io.virgo.virgoAPI;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
+
+import io.virgo.virgoAPI.cache.HashKeyMap;
+import io.virgo.virgoAPI.data.Transaction;
+import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.requestsResponses.GetTransactionsResponse;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Walk the ancestors of transactions through their parents and/or inputs
+ * <br><br>
+ * The hashes of the walk's frontier are fetched concurrently, in lookups of up to 100 transactions,
+ * while keeping at most the configured amount of transactions in flight. Each transaction is visited once,
+ * the visitor is called with it and its depth as soon as it's fetched, one call at a time.<br>
+ * The walk stops at the configured depth and doesn't go past the configured stop hashes (ie beacons),
+ * which are still visited. With a max depth the walk goes level by level, a depth being fetched once the previous one is done,
+ * so each transaction is reached through its shortest path and nothing within the max depth is cut off.
+ * Without one levels overlap and a transaction's depth is the one of the path it was first reached through.
+ * <p>
+ * Example:<br><br>
+ * {@code api.createDagWalker().followParents(false).maxDepth(50).walk(hashes, (tx, depth) -> ...).join();}
+ * <p>
+ */
+public class DagWalker {
+
+	private static final int LOOKUP_SIZE = 100;
+
+	private AsyncVirgoAPI async;
+
+	private boolean followParents = true;
+	private boolean followInputs = true;
+	private int maxDepth = -1;
+	private HashSet<Sha256Hash> stopAt = new HashSet<Sha256Hash>();
+	private int window = 1000;
+
+	DagWalker(AsyncVirgoAPI async) {
+		this.async = async;
+	}
+
+	/**
+	 * @param follow whether to walk through transactions' parents, true by default
+	 */
+	public DagWalker followParents(boolean follow) {
+		followParents = follow;
+		return this;
+	}
+
+	/**
+	 * @param follow whether to walk through transactions' inputs, true by default
+	 */
+	public DagWalker followInputs(boolean follow) {
+		followInputs = follow;
+		return this;
+	}
+
+	/**
+	 * @param depth the depth past which ancestors aren't walked, the starting transactions being at depth 0, -1 for no limit (default)
+	 */
+	public DagWalker maxDepth(int depth) {
+		if(depth < -1)
+			throw new IllegalArgumentException(depth + " is not a valid depth");
+
+		maxDepth = depth;
+		return this;
+	}
+
+	/**
+	 * @param hashes hashes whose ancestors aren't walked, ie beacons
+	 */
+	public DagWalker stopAt(Collection<Sha256Hash> hashes) {
+		stopAt = new HashSet<Sha256Hash>(hashes);
+		return this;
+	}
+
+	/**
+	 * @param size the maximum amount of transactions being fetched at once, 1000 by default
+	 */
+	public DagWalker window(int size) {
+		if(size <= 0)
+			throw new IllegalArgumentException(size + " is not a valid window size");
+
+		window = size;
+		return this;
+	}
+
+	/**
+	 * Walk the ancestors of the given transactions
+	 * @param from the hashes of the transactions to start from
+	 * @param visitor called with each visited transaction and its depth
+	 * @return a future completed once the walk is over with the hashes no peer could provide,
+	 * completed exceptionally if the visitor throws, cancelling it stops the walk
+	 */
+	public CompletableFuture<Set<Sha256Hash>> walk(Collection<Sha256Hash> from, ObjIntConsumer<Transaction> visitor) {
+		Walk walk = new Walk(visitor, followParents, followInputs, maxDepth, stopAt, window);
+
+		for(Sha256Hash hash : from)
+			walk.enqueue(hash, 0);
+
+		walk.pump();
+		return walk.done;
+	}
+
+	private class Walk {
+
+		private ObjIntConsumer<Transaction> visitor;
+		private boolean followParents;
+		private boolean followInputs;
+		private int maxDepth;
+		private HashSet<Sha256Hash> stopAt;
+		private int window;
+
+		private ArrayDeque<Node> frontier = new ArrayDeque<Node>();
+		private HashKeyMap<Boolean> visited = new HashKeyMap<Boolean>();
+		private HashSet<Sha256Hash> unresolved = new HashSet<Sha256Hash>();
+		private int inFlight = 0;
+		private int level = 0;
+		private boolean pumping = false;
+
+		private CompletableFuture<Set<Sha256Hash>> done = new CompletableFuture<Set<Sha256Hash>>();
+
+		private Walk(ObjIntConsumer<Transaction> visitor, boolean followParents, boolean followInputs, int maxDepth,
+				HashSet<Sha256Hash> stopAt, int window) {
+			this.visitor = visitor;
+			this.followParents = followParents;
+			this.followInputs = followInputs;
+			this.maxDepth = maxDepth;
+			this.stopAt = stopAt;
+			this.window = window;
+		}
+
+		private void enqueue(Sha256Hash hash, int depth) {
+			if(visited.put(hash, Boolean.TRUE) == null)
+				frontier.add(new Node(hash, depth));
+		}
+
+		/**
+		 * Fetch the frontier's next hashes while the window allows it, complete the walk once nothing is left.
+		 * Lookups served locally complete right away, their results are handled by the running loop rather than by recursing
+		 */
+		private synchronized void pump() {
+			if(done.isDone() || pumping)
+				return;
+
+			pumping = true;
+			while(!frontier.isEmpty() && inFlight < window && !done.isDone()) {
+				//the next level waits for the current one to be fully expanded
+				if(maxDepth >= 0 && inFlight > 0 && frontier.peek().depth != level)
+					break;
+
+				int size = Math.min(LOOKUP_SIZE, window - inFlight);
+				level = frontier.peek().depth;
+
+				ArrayList<Node> nodes = new ArrayList<Node>();
+				ArrayList<Sha256Hash> hashes = new ArrayList<Sha256Hash>();
+				while(nodes.size() < size && !frontier.isEmpty() && (maxDepth < 0 || frontier.peek().depth == level)) {
+					Node node = frontier.poll();
+					nodes.add(node);
+					hashes.add(node.hash);
+				}
+
+				inFlight += nodes.size();
+				async.getTransactions(hashes).whenComplete((resp, e) -> fetched(nodes, e == null ? resp : null));
+			}
+			pumping = false;
+
+			if(frontier.isEmpty() && inFlight == 0)
+				done.complete(unresolved);
+		}
+
+		private synchronized void fetched(ArrayList<Node> nodes, GetTransactionsResponse resp) {
+			inFlight -= nodes.size();
+
+			if(done.isDone())
+				return;
+
+			try {
+				for(Node node : nodes) {
+					Transaction tx = resp != null && resp.getResponseCode() == ResponseCode.OK ? resp.getTransaction(node.hash) : null;
+
+					if(tx == null) {
+						unresolved.add(node.hash);
+						continue;
+					}
+
+					visitor.accept(tx, node.depth);
+
+					if(node.depth == maxDepth || stopAt.contains(node.hash))
+						continue;
+
+					if(followParents)
+						for(Sha256Hash parent : tx.getParentsHashes())
+							enqueue(parent, node.depth + 1);
+
+					if(followInputs)
+						for(Sha256Hash input : tx.getInputsHashes())
+							enqueue(input, node.depth + 1);
+				}
+			}catch(RuntimeException e) {
+				done.completeExceptionally(e);
+				return;
+			}
+
+			pump();
+		}
+
+	}
+
+	private static class Node {
+
+		private Sha256Hash hash;
+		private int depth;
+
+		private Node(Sha256Hash hash, int depth) {
+			this.hash = hash;
+			this.depth = depth;
+		}
+
+	}
+
+}
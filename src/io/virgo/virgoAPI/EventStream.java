@@ -0,0 +1,159 @@
+package io.virgo.virgoAPI;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Publisher of the new hashes of a polled list (tips, latest beacons or latest transactions)
+ * <br><br>
+ * A single poller is shared by all subscribers: it runs while there is at least one of them,
+ * diffs each snapshot against the hashes already seen and publishes the new ones only.
+ * The poll interval halves when new hashes show up and grows back by half when none do, between the configured bounds.<br>
+ * Each subscriber gets a bounded buffer and receives hashes as it requests them,
+ * hashes that don't fit in a slow subscriber's buffer are dropped for it instead of delaying the others.
+ */
+public class EventStream implements Flow.Publisher<Sha256Hash> {
+
+	private static final int SEEN_MEMORY = 10000;
+
+	private Supplier<CompletableFuture<List<Sha256Hash>>> fetch;
+	private ScheduledExecutorService scheduler;
+	private long minInterval;
+	private long maxInterval;
+
+	private SubmissionPublisher<Sha256Hash> publisher;
+	private LinkedHashSet<Sha256Hash> seen = new LinkedHashSet<Sha256Hash>();
+	private boolean baselined = false;
+	private AtomicLong dropped = new AtomicLong();
+
+	private volatile long interval;
+	private boolean running = false;
+
+	/**
+	 * @param fetch Gives the current snapshot, or null if it couldn't be fetched
+	 */
+	EventStream(Supplier<CompletableFuture<List<Sha256Hash>>> fetch, ScheduledExecutorService scheduler, Executor executor,
+			long minInterval, long maxInterval) {
+		this.fetch = fetch;
+		this.scheduler = scheduler;
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+
+		interval = minInterval;
+		publisher = new SubmissionPublisher<Sha256Hash>(executor, Flow.defaultBufferSize());
+	}
+
+	/**
+	 * Subscribe to the hashes appearing from now on, starting the poller if needed
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super Sha256Hash> subscriber) {
+		publisher.subscribe(subscriber);
+		start();
+	}
+
+	/**
+	 * @return The current poll interval in milliseconds
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return The amount of hashes dropped because a subscriber's buffer was full
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return The current amount of subscribers
+	 */
+	public int getSubscribersCount() {
+		return publisher.getNumberOfSubscribers();
+	}
+
+	/**
+	 * Stop polling and complete every subscriber
+	 */
+	void close() {
+		publisher.close();
+	}
+
+	private synchronized void start() {
+		if(running || publisher.isClosed())
+			return;
+
+		running = true;
+		scheduler.execute(this::poll);
+	}
+
+	private void poll() {
+		synchronized(this) {
+			//nobody left to notify, the next subscriber will start from a new snapshot
+			if(!publisher.hasSubscribers() || publisher.isClosed()) {
+				running = false;
+				seen.clear();
+				baselined = false;
+				interval = minInterval;
+				return;
+			}
+		}
+
+		fetch.get().whenComplete((hashes, e) -> {
+			if(hashes != null)
+				publish(hashes);
+
+			try {
+				scheduler.schedule(this::poll, interval, TimeUnit.MILLISECONDS);
+			}catch(Exception rejected) {}
+		});
+	}
+
+	/**
+	 * Publish the hashes not seen yet and adapt the poll interval, the first snapshot is only recorded
+	 * even if it is empty
+	 */
+	private synchronized void publish(List<Sha256Hash> hashes) {
+		boolean baseline = !baselined;
+		baselined = true;
+		int fresh = 0;
+
+		for(Sha256Hash hash : hashes) {
+			if(!seen.add(hash))
+				continue;
+
+			fresh++;
+			if(!baseline)
+				publisher.offer(hash, (subscriber, item) -> {
+					dropped.incrementAndGet();
+					return false;
+				});
+		}
+
+		for(Iterator<Sha256Hash> it = seen.iterator(); seen.size() > Math.max(SEEN_MEMORY, hashes.size() * 2);) {
+			it.next();
+			it.remove();
+		}
+
+		if(baseline)
+			return;
+
+		if(fresh > 0)
+			interval = Math.max(minInterval, interval / 2);
+		else
+			interval = Math.min(maxInterval, interval + interval / 2);
+	}
+
+}
@@ -0,0 +1,292 @@
+package io.virgo.virgoAPI;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.virgo.virgoAPI.network.DecodedResponse;
+import io.virgo.virgoAPI.network.Provider;
+import io.virgo.virgoAPI.network.ResponseCode;
+
+/**
+ * Concurrently request a set of keys to a list of providers<br>
+ * Every key is first asked to the first provider, keys it doesn't know are immediately re-queued to the next one.
+ * Each provider never has more than the given parallelism of requests in flight for this fan-out.<br>
+ * Providers with a batch limit are sent the keys queued for them in batches of up to that limit, a batch counting
+ * as one request, the others are sent one key per request. A provider answering a batch with 404 doesn't serve
+ * batched lookups, its batch is re-queued to it to be sent key by key.<br>
+ * A key's request may be hedged to the next provider, the hedge then takes one of that provider's slots and is only
+ * sent if one is free.<br>
+ * Requests completing right away (ie cached misses or open circuits) are handled by the running send loop
+ * instead of recursing, so the stack doesn't grow with the amount of keys.
+ */
+class FanOut<K, T> {
+
+	private List<Provider> providers;
+	private int parallelism;
+	private Attempt<K, T> attempt;
+	private int[] batchLimits;
+	private BatchAttempt<K, T> batchAttempt;
+
+	private Map<K, T> results;
+
+	private ArrayList<ArrayDeque<K>> queues = new ArrayList<ArrayDeque<K>>();
+	private int[] inFlight;
+	private int remaining;
+	private boolean pumping = false;
+
+	private CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+	/**
+	 * @param providers The providers to ask, by order of preference
+	 * @param parallelism Maximum amount of requests in flight per provider
+	 * @param attempt Request a key to the provider at the given index, completes with null if not found or invalid
+	 * @param results The map found values are put in
+	 */
+	FanOut(List<Provider> providers, int parallelism, Attempt<K, T> attempt, Map<K, T> results) {
+		this(providers, parallelism, attempt, new int[providers.size()], null, results);
+	}
+
+	/**
+	 * @param providers The providers to ask, by order of preference
+	 * @param parallelism Maximum amount of requests in flight per provider
+	 * @param attempt Request a key to the provider at the given index, completes with null if not found or invalid
+	 * @param batchLimits Maximum amount of keys per batch for each provider, 0 or 1 for providers asked key by key
+	 * @param batchAttempt Request a batch of keys to the provider at the given index, completes with the found values
+	 * @param results The map found values are put in
+	 */
+	FanOut(List<Provider> providers, int parallelism, Attempt<K, T> attempt, int[] batchLimits, BatchAttempt<K, T> batchAttempt, Map<K, T> results) {
+		this.providers = providers;
+		this.parallelism = parallelism;
+		this.attempt = attempt;
+		this.batchLimits = batchLimits.clone();
+		this.batchAttempt = batchAttempt;
+		this.results = results;
+
+		inFlight = new int[providers.size()];
+		for(int i = 0; i < providers.size(); i++)
+			queues.add(new ArrayDeque<K>());
+	}
+
+	/**
+	 * @param keys The keys to request
+	 * @return a future completed once every key has been found or refused by all providers
+	 */
+	CompletableFuture<Void> run(Collection<K> keys) {
+		if(keys.isEmpty() || providers.isEmpty())
+			return CompletableFuture.completedFuture(null);
+
+		synchronized(this) {
+			remaining = keys.size();
+			queues.get(0).addAll(keys);
+		}
+
+		pump();
+
+		return done;
+	}
+
+	/**
+	 * Send queued keys to their provider while it is below its parallelism limit, until none can be sent<br>
+	 * Only one thread runs the loop at a time, others just leave their keys queued for it
+	 */
+	private void pump() {
+		synchronized(this) {
+			if(pumping)
+				return;
+
+			pumping = true;
+		}
+
+		while(true) {
+			int index = -1;
+			K key = null;
+			ArrayList<K> batch = null;
+
+			synchronized(this) {
+				for(int i = 0; i < queues.size() && index == -1; i++) {
+					ArrayDeque<K> queue = queues.get(i);
+					if(inFlight[i] >= parallelism || queue.isEmpty())
+						continue;
+
+					index = i;
+					if(batchLimits[i] > 1 && queue.size() > 1) {
+						batch = new ArrayList<K>();
+						while(batch.size() < batchLimits[i] && !queue.isEmpty())
+							batch.add(queue.poll());
+					}else {
+						key = queue.poll();
+					}
+				}
+
+				if(index == -1) {
+					pumping = false;
+					return;
+				}
+
+				inFlight[index]++;
+			}
+
+			if(batch != null)
+				sendBatch(index, batch);
+			else
+				send(index, key);
+		}
+	}
+
+	private void send(int index, K key) {
+		CompletableFuture<T> request;
+		try {
+			request = attempt.apply(index, key, new HedgeSlot(index + 1));
+		}catch(Exception e) {
+			request = CompletableFuture.completedFuture(null);
+		}
+
+		request.whenComplete((result, e) -> {
+			try {
+				synchronized(this) {
+					inFlight[index]--;
+				}
+
+				if(result != null) {
+					results.put(key, result);
+					resolved();
+				}else {
+					missed(index, key);
+				}
+
+				pump();
+			}catch(Throwable t) {
+				done.completeExceptionally(t);
+			}
+		});
+	}
+
+	private void sendBatch(int index, List<K> keys) {
+		CompletableFuture<DecodedResponse<Map<K, T>>> request;
+		try {
+			request = batchAttempt.apply(index, keys);
+		}catch(Exception e) {
+			request = CompletableFuture.completedFuture(null);
+		}
+
+		request.whenComplete((resp, e) -> {
+			try {
+				synchronized(this) {
+					inFlight[index]--;
+				}
+
+				if(resp != null && resp.getResponseCode() == ResponseCode.NOT_FOUND) {
+					//The provider doesn't serve batched lookups, ask it the keys one by one
+					synchronized(this) {
+						batchLimits[index] = 0;
+						queues.get(index).addAll(keys);
+					}
+
+					//spare the following lookups a batch the provider refuses
+					providers.get(index).setBatchLimit(0);
+				}else {
+					Map<K, T> found = resp != null && resp.getResponseCode() == ResponseCode.OK ? resp.getValue() : null;
+
+					for(K key : keys) {
+						T result = found != null ? found.get(key) : null;
+
+						if(result != null) {
+							results.put(key, result);
+							resolved();
+						}else {
+							missed(index, key);
+						}
+					}
+				}
+
+				pump();
+			}catch(Throwable t) {
+				done.completeExceptionally(t);
+			}
+		});
+	}
+
+	/**
+	 * Ask the next provider for a key the given one didn't give, give up on it if none is left
+	 */
+	private void missed(int index, K key) {
+		if(index + 1 < providers.size()) {
+			synchronized(this) {
+				queues.get(index + 1).add(key);
+			}
+		}else {
+			resolved();
+		}
+	}
+
+	/**
+	 * A request slot on a provider for a hedged request, released once the hedge completes
+	 */
+	class HedgeSlot {
+
+		private int index;
+		private boolean acquired = false;
+
+		private HedgeSlot(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * @return true if the provider had a free slot, which is now taken
+		 */
+		boolean tryAcquire() {
+			synchronized(FanOut.this) {
+				if(acquired || index >= providers.size() || inFlight[index] >= parallelism)
+					return false;
+
+				inFlight[index]++;
+				acquired = true;
+				return true;
+			}
+		}
+
+		void release() {
+			synchronized(FanOut.this) {
+				if(!acquired)
+					return;
+
+				inFlight[index]--;
+				acquired = false;
+			}
+
+			pump();
+		}
+
+	}
+
+	private void resolved() {
+		boolean finished;
+		synchronized(this) {
+			finished = --remaining == 0;
+		}
+
+		if(finished)
+			done.complete(null);
+	}
+
+	/**
+	 * Request a key to the provider at the given index of the fan-out's providers list,
+	 * a request hedged to the next provider must first take the given slot and release it once done
+	 */
+	interface Attempt<K, T> {
+		CompletableFuture<T> apply(int providerIndex, K key, FanOut<K, T>.HedgeSlot hedgeSlot);
+	}
+
+	/**
+	 * Request a batch of keys to the provider at the given index of the fan-out's providers list,
+	 * completes with the found values by key, a NOT_FOUND response meaning the provider doesn't serve batches
+	 */
+	interface BatchAttempt<K, T> {
+		CompletableFuture<DecodedResponse<Map<K, T>>> apply(int providerIndex, List<K> keys);
+	}
+
+}
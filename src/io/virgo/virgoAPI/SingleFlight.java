@@ -0,0 +1,115 @@
+package io.virgo.virgoAPI;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Coalesce concurrent identical calls: while a call for a key is in flight, callers asking for the same key
+ * share its result instead of starting their own<br>
+ * Each caller gets its own future, cancelling it only cancels the shared call once every caller gave up on it.
+ */
+class SingleFlight<K> {
+
+	private HashMap<K, Flight> flights = new HashMap<K, Flight>();
+	
+	/**
+	 * @param key Identifies calls giving the same result
+	 * @param call Starts the call if none is in flight for this key
+	 * @return a future completed with the shared call's result
+	 */
+	@SuppressWarnings("unchecked")
+	<T> CompletableFuture<T> run(K key, Supplier<CompletableFuture<T>> call) {
+		Flight flight;
+		boolean leader = false;
+		
+		synchronized(this) {
+			flight = flights.get(key);
+			if(flight == null) {
+				flight = new Flight();
+				flights.put(key, flight);
+				leader = true;
+			}
+			flight.subscribers++;
+		}
+		
+		if(leader)
+			start(key, flight, call);
+		
+		Flight joined = flight;
+		CompletableFuture<T> result = ((CompletableFuture<T>) flight.result).thenApply(value -> value);
+		
+		result.whenComplete((value, e) -> {
+			if(result.isCancelled())
+				leave(key, joined);
+		});
+		
+		return result;
+	}
+	
+	/**
+	 * @return the amount of calls currently in flight
+	 */
+	synchronized int size() {
+		return flights.size();
+	}
+	
+	private <T> void start(K key, Flight flight, Supplier<CompletableFuture<T>> call) {
+		CompletableFuture<T> source;
+		try {
+			source = call.get();
+		}catch(RuntimeException e) {
+			source = new CompletableFuture<T>();
+			source.completeExceptionally(e);
+		}
+		
+		boolean cancelled;
+		synchronized(this) {
+			flight.source = source;
+			cancelled = flight.subscribers == 0;
+		}
+		
+		source.whenComplete((value, e) -> {
+			//later callers must start a new call
+			synchronized(this) {
+				if(flights.get(key) == flight)
+					flights.remove(key);
+			}
+			
+			if(e != null)
+				flight.result.completeExceptionally(e);
+			else
+				flight.result.complete(value);
+		});
+		
+		if(cancelled)
+			source.cancel(true);
+	}
+	
+	private void leave(K key, Flight flight) {
+		CompletableFuture<?> source;
+		
+		synchronized(this) {
+			if(--flight.subscribers > 0)
+				return;
+			
+			//nobody waits for this call anymore
+			if(flights.get(key) == flight)
+				flights.remove(key);
+			
+			source = flight.source;
+		}
+		
+		if(source != null)
+			source.cancel(true);
+	}
+	
+	private static class Flight {
+		
+		private CompletableFuture<Object> result = new CompletableFuture<Object>();
+		private CompletableFuture<?> source;
+		private int subscribers = 0;
+		
+	}
+	
+}
@@ -0,0 +1,125 @@
+package io.virgo.virgoAPI;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.requestsResponses.RequestResponse;
+
+/**
+ * Keep a recent snapshot of a request's response, refreshed in the background at a fixed interval<br>
+ * Failed refreshes keep the previous snapshot.
+ */
+public class SnapshotRefresher<T extends RequestResponse> {
+
+	private Supplier<CompletableFuture<T>> fetch;
+	private long interval;
+	
+	private volatile Snapshot<T> snapshot = null;
+	private ScheduledExecutorService scheduler;
+	private volatile boolean stopped = false;
+	
+	SnapshotRefresher(Supplier<CompletableFuture<T>> fetch, long interval) {
+		this.fetch = fetch;
+		this.interval = interval;
+	}
+	
+	void start(ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+		scheduler.execute(this::poll);
+	}
+	
+	void stop() {
+		stopped = true;
+	}
+	
+	/**
+	 * Refresh the snapshot, the next refresh is scheduled once it's done
+	 */
+	private void poll() {
+		if(stopped)
+			return;
+		
+		refresh().whenComplete((v, e) -> {
+			try {
+				scheduler.schedule(this::poll, interval, TimeUnit.MILLISECONDS);
+			}catch(Exception rejected) {}
+		});
+	}
+	
+	/**
+	 * @return The latest snapshot, or null if none has been taken yet
+	 */
+	public T get() {
+		Snapshot<T> current = snapshot;
+		return current != null ? current.value : null;
+	}
+	
+	/**
+	 * Get the latest snapshot if it's recent enough, fetch a fresh one otherwise
+	 * @param maxAge the maximum age of the snapshot in milliseconds
+	 * @return a future completed with the snapshot
+	 */
+	public CompletableFuture<T> get(long maxAge) {
+		Snapshot<T> current = snapshot;
+		
+		if(current != null && ageOf(current) <= maxAge)
+			return CompletableFuture.completedFuture(current.value);
+		
+		return refresh();
+	}
+	
+	/**
+	 * @return Time since the latest snapshot has been taken in milliseconds, or -1 if none has been taken yet
+	 */
+	public long getAge() {
+		Snapshot<T> current = snapshot;
+		return current != null ? ageOf(current) : -1;
+	}
+	
+	/**
+	 * @return The refresh interval in milliseconds
+	 */
+	public long getInterval() {
+		return interval;
+	}
+	
+	/**
+	 * Fetch a fresh response and keep it as snapshot if valid
+	 * @return a future completed with the fetched response
+	 */
+	private CompletableFuture<T> refresh() {
+		long start = System.nanoTime();
+		
+		return fetch.get().thenApply(resp -> {
+			if(resp.getResponseCode() == ResponseCode.OK) {
+				synchronized(this) {
+					//a slower concurrent refresh must not replace a newer snapshot
+					if(snapshot == null || snapshot.takenAt - start < 0)
+						snapshot = new Snapshot<T>(resp, start);
+				}
+			}
+			
+			return resp;
+		});
+	}
+	
+	private static long ageOf(Snapshot<?> snapshot) {
+		return (System.nanoTime() - snapshot.takenAt) / 1000000;
+	}
+	
+	private static class Snapshot<T> {
+		
+		private T value;
+		private long takenAt;
+		
+		private Snapshot(T value, long takenAt) {
+			this.value = value;
+			this.takenAt = takenAt;
+		}
+		
+	}
+	
+}
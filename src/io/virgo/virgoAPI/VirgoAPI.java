@@ -3,27 +3,35 @@ package io.virgo.virgoAPI;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import io.virgo.virgoAPI.crypto.TxOutput;
-import io.virgo.virgoAPI.data.AddressBalance;
-import io.virgo.virgoAPI.data.AddressTxs;
-import io.virgo.virgoAPI.data.BeaconState;
+import io.virgo.virgoAPI.cache.BeaconStateCache;
+import io.virgo.virgoAPI.cache.HashKey;
+import io.virgo.virgoAPI.cache.NegativeCache;
+import io.virgo.virgoAPI.cache.TinyLfuCache;
+import io.virgo.virgoAPI.cache.TransactionStateCache;
+import io.virgo.virgoAPI.cache.TransactionStore;
 import io.virgo.virgoAPI.data.Transaction;
-import io.virgo.virgoAPI.data.TransactionState;
-import io.virgo.virgoAPI.data.TxStatus;
+import io.virgo.virgoAPI.network.CircuitBreaker;
+import io.virgo.virgoAPI.network.HealthScoringPolicy;
+import io.virgo.virgoAPI.network.HedgingPolicy;
+import io.virgo.virgoAPI.network.HttpClientTransport;
 import io.virgo.virgoAPI.network.ProvidersWatcher;
 import io.virgo.virgoAPI.network.Provider;
-import io.virgo.virgoAPI.network.Response;
 import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.network.ScoringPolicy;
+import io.virgo.virgoAPI.network.Transport;
+import io.virgo.virgoAPI.requestsResponses.BroadcastResponse;
 import io.virgo.virgoAPI.requestsResponses.GetAddressesTxsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetBalancesResponse;
 import io.virgo.virgoAPI.requestsResponses.GetBeaconsStateResponse;
@@ -33,10 +41,7 @@ import io.virgo.virgoAPI.requestsResponses.GetPoWInformationsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetTipsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetTransactionsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetTxsStateResponse;
-import io.virgo.virgoCryptoLib.Converter;
-import io.virgo.virgoCryptoLib.Sha256;
 import io.virgo.virgoCryptoLib.Sha256Hash;
-import io.virgo.virgoCryptoLib.Utils;
 
 /**
  * Java library to interact with the Virgo network
@@ -45,6 +50,26 @@ public class VirgoAPI {
 
 	private static VirgoAPI instance;
 	private ProvidersWatcher providersWatcher;
+	private Transport.Factory transportFactory;
+	private AsyncVirgoAPI async;
+	private TinyLfuCache<HashKey, Transaction> transactionCache;
+	private TransactionStore transactionStore;
+	private BeaconStateCache beaconStateCache;
+	private TransactionStateCache transactionStateCache;
+	private NegativeCache negativeCache;
+	
+	private Executor executor;
+	private ScheduledExecutorService scheduler;
+	private SnapshotRefresher<GetTipsResponse> tipsRefresher;
+	private SnapshotRefresher<GetPoWInformationsResponse> workRefresher;
+	
+	private EventStream tipsStream;
+	private EventStream beaconsStream;
+	private EventStream transactionsStream;
+	private ConfirmationTracker confirmationTracker;
+	
+	private int circuitFailureThreshold;
+	private long circuitOpenDuration;
 	
 	public static final int DECIMALS = 8;
 	public static final byte[] ADDR_IDENTIFIER = new BigInteger("4039").toByteArray();
@@ -54,7 +79,63 @@ public class VirgoAPI {
 	 */
 	private VirgoAPI(Builder builder) throws IOException {
 		instance = this;
-		providersWatcher = new ProvidersWatcher(builder.checkRate);
+		circuitFailureThreshold = builder.circuitFailureThreshold;
+		circuitOpenDuration = builder.circuitOpenDuration;
+		
+		if(builder.transportFactory != null) {
+			transportFactory = builder.transportFactory;
+		}else {
+			int poolSize = builder.connectionPoolSize;
+			Executor executor = builder.executor;
+			long timeout = builder.requestTimeout;
+			transportFactory = hostname -> new HttpClientTransport(poolSize, executor, timeout);
+		}
+		
+		if(builder.transactionCacheSize > 0)
+			transactionCache = new TinyLfuCache<HashKey, Transaction>(builder.transactionCacheSize);
+		
+		if(builder.beaconCacheSize > 0)
+			beaconStateCache = new BeaconStateCache(builder.safeConfirmations, builder.beaconCacheSize);
+		
+		if(builder.stateCacheSize > 0)
+			transactionStateCache = new TransactionStateCache(builder.stateCacheSize, builder.pendingStateTtl, builder.maxStateTtl);
+		
+		if(builder.negativeCacheSize > 0)
+			negativeCache = new NegativeCache(builder.negativeCacheTtl, builder.negativeCacheSize);
+		
+		if(builder.transactionStoreDirectory != null)
+			transactionStore = new TransactionStore(builder.transactionStoreDirectory);
+		
+		executor = builder.executor != null ? builder.executor : ForkJoinPool.commonPool();
+		async = new AsyncVirgoAPI(this, executor, builder.providerParallelism, builder.hedging, builder.broadcastQuorum,
+				builder.coalesceRequests, builder.batchSize);
+		
+		//runs background tasks, its threads are only started once a task is scheduled
+		scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "VirgoAPI-Scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		if(builder.snapshotsRefreshRate > 0) {
+			tipsRefresher = new SnapshotRefresher<GetTipsResponse>(async::getTips, builder.snapshotsRefreshRate);
+			workRefresher = new SnapshotRefresher<GetPoWInformationsResponse>(async::getPowInformations, builder.snapshotsRefreshRate);
+			tipsRefresher.start(scheduler);
+			workRefresher.start(scheduler);
+		}
+		
+		tipsStream = new EventStream(() -> async.getTips().thenApply(resp -> resp.getResponseCode() == ResponseCode.OK ? (List<Sha256Hash>) resp.getTips() : null),
+				scheduler, executor, builder.eventsMinInterval, builder.eventsMaxInterval);
+		beaconsStream = new EventStream(() -> async.getLatestBeacons(100).thenApply(resp -> resp.getResponseCode() == ResponseCode.OK ? (List<Sha256Hash>) resp.getBeacons() : null),
+				scheduler, executor, builder.eventsMinInterval, builder.eventsMaxInterval);
+		transactionsStream = new EventStream(() -> async.getLatestTxs(1000).thenApply(resp -> resp.getResponseCode() == ResponseCode.OK ? (List<Sha256Hash>) resp.getTxs() : null),
+				scheduler, executor, builder.eventsMinInterval, builder.eventsMaxInterval);
+		
+		confirmationTracker = new ConfirmationTracker(async, scheduler, builder.confirmationsInterval, builder.confirmationsMaxInterval, builder.confirmationsRoundSize);
+		
+		ScoringPolicy scoringPolicy = builder.scoringPolicy != null ? builder.scoringPolicy : new HealthScoringPolicy(builder.weightTolerance);
+		long probeTimeout = builder.providersCheckTimeout > 0 ? builder.providersCheckTimeout : Math.min(builder.checkRate, builder.requestTimeout);
+		providersWatcher = new ProvidersWatcher(builder.checkRate, probeTimeout, scoringPolicy);
 		
 		for(URL providerHostname : builder.providers)
 			addProvider(providerHostname);
@@ -73,7 +154,8 @@ public class VirgoAPI {
 		else
 			formatedHostname += ":"+hostname.getPort();
 		
-		Provider provider = new Provider(formatedHostname);
+		Provider provider = new Provider(formatedHostname, transportFactory.create(formatedHostname),
+				new CircuitBreaker(circuitFailureThreshold, circuitOpenDuration));
 		return providersWatcher.addProvider(provider);
 	}
 	
@@ -100,41 +182,17 @@ public class VirgoAPI {
 	 * @return {@link GetTipsResponse} containing the request result
 	 */
 	public GetTipsResponse getTips() {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			
-			//send request
-			Response resp = provider.get("/tips");
-			if(resp.getResponseCode() == ResponseCode.OK) {
-				
-				//if got a response check for data validity
-				try {
-					ArrayList<Sha256Hash> responseTips = new ArrayList<Sha256Hash>();
-					JSONArray tipsJSON = new JSONArray(resp.getResponse());
-					
-					for(int i = 0; i < tipsJSON.length(); i++) {
-						try {
-							responseTips.add(new Sha256Hash(tipsJSON.getString(i)));
-						}catch(IllegalArgumentException e) {
-							break;
-						}
-					}
-					
-					//if everything is good return peer response, else goto next iteration
-					if(!responseTips.isEmpty())
-						return new GetTipsResponse(ResponseCode.OK, responseTips);
-					
-				}catch(JSONException e) { }
-				
-			}
-			
-		}
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetTipsResponse(ResponseCode.NOT_FOUND, null);
+		return async.getTips().join();
+	}
+	
+	/**
+	 * Get tips transactions, served from the background refreshed snapshot if it's recent enough
+	 * 
+	 * @param maxAge the maximum age of the snapshot in milliseconds, a fresh request is made if older or if snapshots are disabled
+	 * @return {@link GetTipsResponse} containing the request result
+	 */
+	public GetTipsResponse getTips(long maxAge) {
+		return async.getTips(maxAge).join();
 	}
 	
 	/**
@@ -155,41 +213,7 @@ public class VirgoAPI {
 	 * @return {@link GetLatestBeaconsResp} containing the request result
 	 */
 	public GetLatestBeaconsResp getLatestBeacons(int wanted) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			
-			//send request
-			Response resp = provider.get("/beacon/latest/"+wanted);
-			if(resp.getResponseCode() == ResponseCode.OK) {
-				
-				//if got a response check for data validity
-				try {
-					ArrayList<Sha256Hash> responseBeacons = new ArrayList<Sha256Hash>();
-					JSONArray beaconsJSON = new JSONArray(resp.getResponse());
-					
-					for(int i = 0; i < beaconsJSON.length(); i++) {
-						try {
-							responseBeacons.add(new Sha256Hash(beaconsJSON.getString(i)));
-						}catch(IllegalArgumentException e) {
-							break;
-						}
-					}
-					
-					//if everything is good return peer response, else goto next iteration
-					if(!responseBeacons.isEmpty())
-						return new GetLatestBeaconsResp(ResponseCode.OK, responseBeacons);
-					
-				}catch(JSONException e) { }
-				
-			}
-			
-		}
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetLatestBeaconsResp(ResponseCode.NOT_FOUND, null);
+		return async.getLatestBeacons(wanted).join();
 	}
 	
 	
@@ -211,41 +235,7 @@ public class VirgoAPI {
 	 * @return {@link GetLatestTxsResponse} containing the request result
 	 */
 	public GetLatestTxsResponse getLatestTxs(int wanted) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			
-			//send request
-			Response resp = provider.get("/tx/latest/"+wanted);
-			if(resp.getResponseCode() == ResponseCode.OK) {
-				
-				//if got a response check for data validity
-				try {
-					ArrayList<Sha256Hash> responseTxs = new ArrayList<Sha256Hash>();
-					JSONArray txsJSON = new JSONArray(resp.getResponse());
-					
-					for(int i = 0; i < txsJSON.length(); i++) {
-						try {
-							responseTxs.add(new Sha256Hash(txsJSON.getString(i)));
-						}catch(IllegalArgumentException e) {
-							break;
-						}
-					}
-					
-					//if everything is good return peer response, else goto next iteration
-					if(!responseTxs.isEmpty())
-						return new GetLatestTxsResponse(ResponseCode.OK, responseTxs);
-					
-				}catch(JSONException e) { }
-				
-			}
-			
-		}
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetLatestTxsResponse(ResponseCode.NOT_FOUND, null);
+		return async.getLatestTxs(wanted).join();
 	}
 	
 	/**
@@ -255,170 +245,55 @@ public class VirgoAPI {
 	 * @return {@link GetTransactionResponse} containing the request result
 	 */
 	public GetTransactionsResponse getTransactions(Collection<Sha256Hash> txsHashes) {
-		
-		//remove duplicate entries from wanted transactions
-		txsHashes = new ArrayList<Sha256Hash>(new HashSet<Sha256Hash>(txsHashes));
-		
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		HashMap<Sha256Hash, Transaction> foundTransactions = new HashMap<Sha256Hash, Transaction>();
-		
-		//if one wanted transaction is genesis get it without consulting peers as it's hardcoded
-		Sha256Hash genesisHash = new Sha256Hash("025a6f04e7047b713aaba7fc5003c8266302918c25d1526507becad795b01f3a");
-		if(txsHashes.contains(genesisHash)) {
-			HashMap<String, TxOutput> genesisOutputs = new HashMap<String, TxOutput>();
-			genesisOutputs.put("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv", new TxOutput("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv",(long) (100000 * Math.pow(10, DECIMALS))));
-			
-			foundTransactions.put(genesisHash,
-					new Transaction(genesisHash,null,null,new Sha256Hash[0],new Sha256Hash[0], genesisOutputs, null, null, 0));
-			txsHashes.remove(genesisHash);
-		}
-		
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext() && !foundTransactions.keySet().containsAll(txsHashes)) {
-			Provider provider = providers.next();
-			
-			for(Sha256Hash txHash : txsHashes) {
-				if(foundTransactions.containsKey(txHash))
-					continue;
-				
-				Response resp = provider.get("/tx/"+txHash.toString());
-				
-				if(resp.getResponseCode().equals(ResponseCode.OK)) {
-					
-					try {
-						JSONObject txJson = new JSONObject(resp.getResponse());
-						
-						Sha256Hash receivedTxHash;
-						
-						if(txJson.has("parentBeacon"))
-							receivedTxHash = Sha256.getDoubleHash(Converter.concatByteArrays((txJson.getJSONArray("parents").toString() + txJson.getJSONArray("outputs").toString()).getBytes(),
-									new Sha256Hash(txJson.getString("parentBeacon")).toBytes(), Converter.longToBytes(txJson.getLong("date")), Converter.hexToBytes(txJson.getString("nonce"))));
-							
-						else
-							receivedTxHash = Sha256.getDoubleHash(Converter.concatByteArrays(
-									(txJson.getJSONArray("parents").toString() + txJson.getJSONArray("inputs").toString() + txJson.getJSONArray("outputs").toString()).getBytes()
-									, Converter.hexToBytes(txJson.getString("pubKey")), Converter.longToBytes(txJson.getLong("date"))));
-						
-						//check if given transaction is desired
-						if(txsHashes.contains(receivedTxHash) && !foundTransactions.containsKey(receivedTxHash)) {
-
-							Transaction tx = Transaction.fromJSONObject(txJson);
-							if(tx != null)
-								foundTransactions.put(receivedTxHash, tx);
-							
-						}
-					}catch(Exception e) {}
-					
-				}
-			}
-		}
-		
-		if(foundTransactions.size() != 0)
-			return new GetTransactionsResponse(ResponseCode.OK, foundTransactions);
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetTransactionsResponse(ResponseCode.NOT_FOUND, new HashMap<Sha256Hash, Transaction>());
-		
+		return async.getTransactions(txsHashes).join();
 	}
 	
+	/**
+	 * Iterate lazily over the full history of an address, see {@link AsyncVirgoAPI#getAddressHistory(String, String)}
+	 * @param address the address to iterate on
+	 * @param type the kind of transactions to list, "txs", "inputs", "outputs" or "unspent"
+	 */
+	public AddressHistory getAddressHistory(String address, String type) {
+		return async.getAddressHistory(address, type);
+	}
 	
 	/**
-	 * Get all transactions relative to given addresses
-	 * 
-	 * @param addresses An array of the addresses to fetch
-	 * @return {@link GetAddressesTxsResponse} Containing the transactions IDs corresponding to each addresses
+	 * Iterate lazily over the full history of an address, see {@link AsyncVirgoAPI#getAddressHistory(String, String, int, int)}
 	 */
-	private GetAddressesTxsResponse getAddressesTransactions(String[] addresses, int perPage, int page, String type) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Check if every given address is valid, if not throw an illegalArgumentException
-		for(String address : addresses) {
-			if(!Utils.validateAddress(address, ADDR_IDENTIFIER))
-				throw new IllegalArgumentException(address + " is not a valid address");
-		}
-		
-		//valid transactions container
-		HashMap<String, AddressTxs> addressesTxsMap = new HashMap<String, AddressTxs>();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			
-			for(String address : addresses) {
-				if(addressesTxsMap.containsKey(address))
-					continue;
-				
-				Response resp = provider.get("/address/"+address+"/"+type+"/"+perPage+"/"+page);
-				
-				if(resp.getResponseCode() == ResponseCode.OK) {
-					
-					try {
-						JSONObject respJSON = new JSONObject(resp.getResponse());
-						
-						JSONArray transactionsJSON = respJSON.getJSONArray(type);
-						
-						ArrayList<Sha256Hash> transactions = new ArrayList<Sha256Hash>();
-						for(int i = 0; i < transactionsJSON.length(); i++) {
-							try {
-								transactions.add(new Sha256Hash(transactionsJSON.getString(i)));
-							}catch(Exception e) {
-								break;
-							}
-						}
-						
-						if(transactions.size() == transactionsJSON.length())
-							addressesTxsMap.put(address, new AddressTxs(address, transactions, respJSON.getInt("size")));
-						else break;
-							
-					}catch(JSONException e) {
-						e.printStackTrace();
-					}
-					
-				}
-				
-			}
-			
-		}
-		
-		if(addressesTxsMap.size() != 0)
-			return new GetAddressesTxsResponse(ResponseCode.OK, addressesTxsMap);
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetAddressesTxsResponse(ResponseCode.NOT_FOUND, null);
+	public AddressHistory getAddressHistory(String address, String type, int perPage, int prefetch) {
+		return async.getAddressHistory(address, type, perPage, prefetch);
 	}
 	
 	public GetAddressesTxsResponse getAddressesOutputs(String[] addresses, int perPage, int page) {
-		return getAddressesTransactions(addresses, perPage, page, "outputs");
+		return async.getAddressesOutputs(addresses, perPage, page).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesOutputs(String[] addresses) {
-		return getAddressesTransactions(addresses, 100, 1, "outputs");
+		return async.getAddressesOutputs(addresses).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesInputs(String[] addresses, int perPage, int page) {
-		return getAddressesTransactions(addresses, perPage, page, "inputs");
+		return async.getAddressesInputs(addresses, perPage, page).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesInputs(String[] addresses) {
-		return getAddressesTransactions(addresses, 100, 1, "inputs");
+		return async.getAddressesInputs(addresses).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesUnspent(String[] addresses, int perPage, int page) {
-		return getAddressesTransactions(addresses, perPage, page, "unspent");
+		return async.getAddressesUnspent(addresses, perPage, page).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesUnspent(String[] addresses) {
-		return getAddressesTransactions(addresses, 100, 1, "unspent");
+		return async.getAddressesUnspent(addresses).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesTxs(String[] addresses, int perPage, int page) {
-		return getAddressesTransactions(addresses, perPage, page, "txs");
+		return async.getAddressesTxs(addresses, perPage, page).join();
 	}
 	
 	public GetAddressesTxsResponse getAddressesTxs(String[] addresses) {
-		return getAddressesTransactions(addresses, 100, 1, "txs");
+		return async.getAddressesTxs(addresses).join();
 	}
 	
 	
@@ -430,49 +305,7 @@ public class VirgoAPI {
 	 * @return {@link GetBalancesResponse} Containing the balances of each addresses
 	 */
 	public GetBalancesResponse getBalances(String[] addresses) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		ArrayList<String> addrs = new ArrayList<String>();
-		
-		//Check if every given address is valid, if not throw an illegalArgumentException
-		for(String address : addresses) {
-			if(!Utils.validateAddress(address, ADDR_IDENTIFIER))
-				throw new IllegalArgumentException(address + " is not a valid address");
-			
-			addrs.add(address);
-		}
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			
-			HashMap<String, AddressBalance> balancesMap = new HashMap<String, AddressBalance>();
-			for(String address : addrs) {
-				
-				Response resp = provider.get("/address/"+address+"/balance");
-				
-				if(resp.getResponseCode() == ResponseCode.OK) {
-					try {
-						JSONObject balance = new JSONObject(resp.getResponse());
-						
-						if(addrs.contains(balance.getString("address")))
-							balancesMap.put(balance.getString("address"), new AddressBalance(
-									balance.getString("address"),
-									balance.getLong("received"),
-									balance.getLong("sent")) );
-						
-					}catch(JSONException e) {}
-				}else break;
-				
-			}
-			
-			if(balancesMap.size() == addrs.size())
-				return new GetBalancesResponse(ResponseCode.OK, balancesMap);
-			
-		}
-		
-		//If nothing has been returned yet return 404 NOT FOUND error
-		return new GetBalancesResponse(ResponseCode.NOT_FOUND, null);
+		return async.getBalances(addresses).join();
 	}
 	
 	
@@ -483,102 +316,19 @@ public class VirgoAPI {
 	 * @return {@link GetBeaconsStateResponse} Containing the states of each beacons
 	 */
 	public GetBeaconsStateResponse getBeaconsState(Sha256Hash[] beaconsHashes) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-		
-			HashMap<Sha256Hash, BeaconState> states = new HashMap<Sha256Hash, BeaconState>();
-			
-			for(Sha256Hash hash : beaconsHashes) {
-				
-				Response resp = provider.get("/beacon/"+hash.toString());
-				
-				if(resp.getResponseCode() == ResponseCode.OK) {
-					
-					BeaconState state = BeaconState.fromJSON(hash, new JSONObject(resp.getResponse()));
-					if(state != null)
-						states.put(hash, state);
-					else break;
-					
-				}
-				
-			}
-			
-			if(states.size() == beaconsHashes.length)
-				return new GetBeaconsStateResponse(ResponseCode.OK, states);
-		}
-		
-		return new GetBeaconsStateResponse(ResponseCode.NOT_FOUND, null);
+		return async.getBeaconsState(beaconsHashes).join();
 	}
 	
 	/**
-	 * Get given transactions states (Status, stability, outputs states and values)
+	 * Get given transactions states (Status, stability, outputs states and values)<br>
+	 * If the states cache is enabled (see {@link Builder#transactionStateCache(int, long, long)}) states may be served stale,
+	 * pending ones for up to the pending TTL and confirmed ones' outputs spending for up to 10 pending TTLs
 	 * 
 	 * @param txsUids the IDs of the transactions you want the state of
 	 * @return {@link GetTxsStateResponse} Containing the states of each transactions
 	 */
 	public GetTxsStateResponse getTxsState(Sha256Hash[] txsHashes) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		//Loop through all peers, starting from the one with highest score (probably most up-to-date)
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-		
-			HashMap<Sha256Hash, TransactionState> states = new HashMap<Sha256Hash, TransactionState>();
-			
-			for(Sha256Hash transaction : txsHashes) {
-				
-				Response resp = provider.get("/tx/"+transaction.toString()+"/state");
-				
-				if(resp.getResponseCode() == ResponseCode.OK) {
-					
-					try {
-						
-						JSONObject state = new JSONObject(resp.getResponse());
-						if(state.has("status") && state.has("confirmations") && state.has("outputsState")) {
-						
-							HashMap<String, TxOutput> outputsStateMap = new HashMap<String, TxOutput>();
-							JSONArray outputsState = state.getJSONArray("outputsState");
-							for(int i = 0; i < outputsState.length(); i++) {
-								JSONObject outputState = outputsState.getJSONObject(i);
-								JSONArray claimersJSON = outputState.getJSONArray("claimers");
-								
-								HashMap<Sha256Hash, TxStatus> claimers = new HashMap<Sha256Hash, TxStatus>();
-								for(int i2 = 0; i2 < claimersJSON.length(); i2++) {
-									JSONObject claimer = claimersJSON.getJSONObject(i2);
-									claimers.put(new Sha256Hash(claimer.getString("id")), TxStatus.fromCode(claimer.getInt("status")));
-								}
-								
-								TxOutput output = new TxOutput(outputState.getString("address"), outputState.getLong("amount"), outputState.getBoolean("spent"), claimers);
-								outputsStateMap.put(output.getAddress(), output);
-							}
-							
-							int confirmations = state.getInt("confirmations");
-							
-							Sha256Hash beacon = null;
-							
-							if(confirmations > 0) {
-								beacon = new Sha256Hash(state.getString("beacon"));
-							}
-							
-							states.put(transaction, new TransactionState(transaction, TxStatus.fromCode(state.getInt("status")), beacon, confirmations, outputsStateMap));
-						}else break;
-						
-					}catch(Exception e) {
-						break;
-					}
-					
-				}
-				
-			}
-			
-			if(states.size() == txsHashes.length)
-				return new GetTxsStateResponse(ResponseCode.OK, states);
-		}
-		
-		return new GetTxsStateResponse(ResponseCode.NOT_FOUND, null);
+		return async.getTxsState(txsHashes).join();
 	}
 	
 	/**
@@ -586,51 +336,183 @@ public class VirgoAPI {
 	 * @return {@link GetPoWinformations} Containing the informations (recommanded parent beacon, randomX key, difficulty and parent transactions
 	 */
 	public GetPoWInformationsResponse getPowInformations() {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
-		
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-		
-			Response resp = provider.get("/work");
-			if(resp.getResponseCode() == ResponseCode.OK) {
-				try {
-					
-					JSONObject respJSON = new JSONObject(resp.getResponse());
-					
-					JSONArray parentsJSON = respJSON.getJSONArray("parentTxs");
-					
-					ArrayList<Sha256Hash> parents = new ArrayList<Sha256Hash>();
-					for(int i = 0; i < parentsJSON.length(); i++)
-						parents.add(new Sha256Hash(parentsJSON.getString(i)));
-					
-					GetPoWInformationsResponse informations = new GetPoWInformationsResponse(ResponseCode.OK,
-							new Sha256Hash(respJSON.getString("parentBeacon")),
-							new Sha256Hash(respJSON.getString("key")),
-							new BigInteger(respJSON.getString("difficulty")),
-							parents
-							);
-					
-					return informations;
-					
-				}catch(Exception e) { }
-			}
-		}
-		
-		return new GetPoWInformationsResponse(ResponseCode.NOT_FOUND, null, null, BigInteger.ONE, null);
-		
+		return async.getPowInformations().join();
+	}
+	
+	/**
+	 * Get proof of work mining informations, served from the background refreshed snapshot if it's recent enough
+	 * @param maxAge the maximum age of the snapshot in milliseconds, a fresh request is made if older or if snapshots are disabled
+	 * @return {@link GetPoWinformations} Containing the informations
+	 */
+	public GetPoWInformationsResponse getPowInformations(long maxAge) {
+		return async.getPowInformations(maxAge).join();
+	}
+	
+	/**
+	 * @return The non-blocking version of this API, where every query returns a {@link CompletableFuture}
+	 */
+	public AsyncVirgoAPI async() {
+		return async;
 	}
 	
 	/***
-	 * Broadcast a transaction to the network
+	 * Broadcast a transaction to the network<br>
+	 * Returns as soon as the configured quorum of providers accepted it, remaining deliveries keep running in the background
 	 * @param transaction the transaction to broadcast in form of JSON Object
+	 * @return {@link BroadcastResponse} containing the delivery report
+	 */
+	public BroadcastResponse broadcastTransaction(JSONObject transaction) {
+		return async.broadcastTransaction(transaction).join();
+	}
+	
+	/**
+	 * @return The cache of verified transactions, with its hit, miss and eviction counters, or null if disabled
+	 */
+	public TinyLfuCache<HashKey, Transaction> getTransactionCache() {
+		return transactionCache;
+	}
+	
+	/**
+	 * @return The persistent store of verified transactions, or null if disabled
+	 */
+	public TransactionStore getTransactionStore() {
+		return transactionStore;
+	}
+	
+	/**
+	 * @return The cache of final beacons states, or null if disabled
+	 */
+	public BeaconStateCache getBeaconStateCache() {
+		return beaconStateCache;
+	}
+	
+	/**
+	 * @return The cache of transactions states, or null if disabled
+	 */
+	public TransactionStateCache getTransactionStateCache() {
+		return transactionStateCache;
+	}
+	
+	/**
+	 * @return The cache of recently not found lookups, or null if disabled
+	 */
+	public NegativeCache getNegativeCache() {
+		return negativeCache;
+	}
+	
+	/**
+	 * @return The background refreshed tips snapshot, with its age, or null if disabled
+	 */
+	public SnapshotRefresher<GetTipsResponse> getTipsRefresher() {
+		return tipsRefresher;
+	}
+	
+	/**
+	 * @return The background refreshed proof of work informations snapshot, with its age, or null if disabled
+	 */
+	public SnapshotRefresher<GetPoWInformationsResponse> getWorkRefresher() {
+		return workRefresher;
+	}
+	
+	/**
+	 * @return A publisher of the new tips, polled by a single shared poller while it has subscribers
 	 */
-	public void broadcastTransaction(JSONObject transaction) {
-		Iterator<Provider> providers = getProvidersWatcher().getProvidersByScore().iterator();
+	public EventStream getTipsStream() {
+		return tipsStream;
+	}
+	
+	/**
+	 * @return A publisher of the new beacons among the 100 latest ones, polled by a single shared poller while it has subscribers
+	 */
+	public EventStream getBeaconsStream() {
+		return beaconsStream;
+	}
+	
+	/**
+	 * @return A publisher of the new transactions among the 1000 latest ones, polled by a single shared poller while it has subscribers
+	 */
+	public EventStream getTransactionsStream() {
+		return transactionsStream;
+	}
+	
+	/**
+	 * @return The tracker completing futures once transactions reach a target amount of confirmations, shared by all callers
+	 */
+	public ConfirmationTracker getConfirmationTracker() {
+		return confirmationTracker;
+	}
+	
+	/**
+	 * Create a watcher publishing the new outputs of the addresses it watches,
+	 * polling up to 5000 addresses every second in shards of 500
+	 */
+	public AddressWatcher createAddressWatcher() {
+		return createAddressWatcher(1000, 5000, 500);
+	}
+	
+	/**
+	 * Create a watcher publishing the new outputs of the addresses it watches
+	 * @param interval the delay between two polling rounds in milliseconds
+	 * @param roundSize the maximum amount of addresses polled per round, recently active ones first
+	 * @param shardSize the amount of addresses polled concurrently within a round
+	 */
+	public AddressWatcher createAddressWatcher(long interval, int roundSize, int shardSize) {
+		if(interval <= 0)
+			throw new IllegalArgumentException(interval + " is not a valid interval");
 		
-		while(providers.hasNext()) {
-			Provider provider = providers.next();
-			provider.post("/tx", transaction.toString());
-		}
+		if(roundSize <= 0)
+			throw new IllegalArgumentException(roundSize + " is not a valid round size");
+		
+		if(shardSize <= 0)
+			throw new IllegalArgumentException(shardSize + " is not a valid shard size");
+		
+		AddressWatcher watcher = new AddressWatcher(async, scheduler, executor, interval, roundSize, shardSize);
+		watcher.start();
+		return watcher;
+	}
+	
+	/**
+	 * Create a walker through the ancestors of transactions, following both parents and inputs with no depth limit by default
+	 */
+	public DagWalker createDagWalker() {
+		return new DagWalker(async);
+	}
+	
+	/**
+	 * Create and start a local index of the beacon chain down to the given height,
+	 * refreshed every 5 seconds from the 100 latest beacons
+	 * @param fromHeight the height down to which the main chain is indexed, 0 for the whole chain
+	 */
+	public BeaconChainSync createBeaconChainSync(long fromHeight) {
+		return createBeaconChainSync(fromHeight, 5000, 100);
+	}
+	
+	/**
+	 * Create and start a local index of the beacon chain
+	 * @param fromHeight the height down to which the main chain is indexed, 0 for the whole chain
+	 * @param interval the delay between two sync rounds in milliseconds
+	 * @param window the amount of latest beacons asked each round, the main chain's most recent ones being checked for reorgs
+	 */
+	public BeaconChainSync createBeaconChainSync(long fromHeight, long interval, int window) {
+		if(fromHeight < 0)
+			throw new IllegalArgumentException(fromHeight + " is not a valid height");
+		
+		if(interval <= 0)
+			throw new IllegalArgumentException(interval + " is not a valid interval");
+		
+		if(window <= 0 || window > 1000)
+			throw new IllegalArgumentException(window + " is not a valid window size");
+		
+		BeaconChainSync sync = new BeaconChainSync(async, scheduler, fromHeight, interval, window);
+		sync.start();
+		return sync;
+	}
+	
+	/**
+	 * @return The scheduler running background tasks
+	 */
+	ScheduledExecutorService getScheduler() {
+		return scheduler;
 	}
 	
 	public static VirgoAPI getInstance() {
@@ -639,6 +521,15 @@ public class VirgoAPI {
 	
 	public void shutdown() {
 		providersWatcher.shutdown();
+		
+		tipsStream.close();
+		beaconsStream.close();
+		transactionsStream.close();
+		confirmationTracker.stop();
+		scheduler.shutdownNow();
+		
+		if(transactionStore != null)
+			transactionStore.close();
 	}
 	
 	/**
@@ -656,6 +547,36 @@ public class VirgoAPI {
 	public static class Builder {
 		
 		private long checkRate = 10000;
+		private long providersCheckTimeout = 0;
+		
+		private int connectionPoolSize = 16;
+		private Transport.Factory transportFactory = null;
+		private Executor executor = null;
+		private int providerParallelism = 8;
+		private long requestTimeout = 10000;
+		private HedgingPolicy hedging = null;
+		private long weightTolerance = 0;
+		private ScoringPolicy scoringPolicy = null;
+		private int circuitFailureThreshold = 5;
+		private long circuitOpenDuration = 10000;
+		private int broadcastQuorum = 1;
+		private int transactionCacheSize = 10000;
+		private Path transactionStoreDirectory = null;
+		private long safeConfirmations = 100;
+		private int beaconCacheSize = 0;
+		private boolean coalesceRequests = true;
+		private long snapshotsRefreshRate = 0;
+		private long negativeCacheTtl = 1000;
+		private int negativeCacheSize = 10000;
+		private int batchSize = 100;
+		private long eventsMinInterval = 1000;
+		private long eventsMaxInterval = 15000;
+		private long confirmationsInterval = 2000;
+		private long confirmationsMaxInterval = 30000;
+		private int confirmationsRoundSize = 500;
+		private int stateCacheSize = 0;
+		private long pendingStateTtl = 2000;
+		private long maxStateTtl = 300000;
 		
 		private ArrayList<URL> providers = new ArrayList<URL>();
 		
@@ -668,11 +589,317 @@ public class VirgoAPI {
 			return this;
 		}
 		
+		/**
+		 * Set the rate at which all providers are checked and scored
+		 * @param rate the rate in milliseconds, 10000 by default
+		 */
 		public Builder providersUpdateRate(long rate) {
+			if(rate <= 0)
+				throw new IllegalArgumentException(rate + " is not a valid rate");
+			
 			checkRate = rate;
 			return this;
 		}
 		
+		/**
+		 * Set the deadline of each provider check, a provider not answering in time is set back as pending
+		 * @param timeout the timeout in milliseconds, by default the smallest of the update rate and the request timeout
+		 */
+		public Builder providersCheckTimeout(long timeout) {
+			if(timeout <= 0)
+				throw new IllegalArgumentException(timeout + " is not a valid timeout");
+			
+			providersCheckTimeout = timeout;
+			return this;
+		}
+		
+		/**
+		 * Set the maximum amount of concurrent connections (or HTTP/2 streams) kept toward each provider<br>
+		 * Idle connections are closed after the JDK's jdk.httpclient.keepalive.timeout system property, in seconds,
+		 * which is JVM wide and only read when the first HttpClient is created
+		 * @param size the pool size, 16 by default
+		 */
+		public Builder connectionPoolSize(int size) {
+			if(size <= 0)
+				throw new IllegalArgumentException(size + " is not a valid pool size");
+			
+			connectionPoolSize = size;
+			return this;
+		}
+		
+		/**
+		 * Use a custom {@link Transport} for providers instead of the default {@link HttpClientTransport}<br>
+		 * The pool size setting is then left to the given factory
+		 * @param factory the factory creating each provider's transport
+		 */
+		public Builder transport(Transport.Factory factory) {
+			transportFactory = factory;
+			return this;
+		}
+		
+		/**
+		 * Set the executor running asynchronous requests and responses parsing
+		 * @param executor the executor to use, the common {@link ForkJoinPool} by default
+		 */
+		public Builder executor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+		
+		/**
+		 * Set how many requests a single bulk lookup (getTransactions, getTxsState) may have in flight toward each provider
+		 * @param parallelism the per-provider parallelism, 8 by default
+		 */
+		public Builder providerParallelism(int parallelism) {
+			if(parallelism <= 0)
+				throw new IllegalArgumentException(parallelism + " is not a valid parallelism");
+			
+			providerParallelism = parallelism;
+			return this;
+		}
+		
+		/**
+		 * Set after how long a connection attempt or a request to a provider is abandoned
+		 * @param timeout the timeout in milliseconds, 10000 by default
+		 */
+		public Builder requestTimeout(long timeout) {
+			if(timeout <= 0)
+				throw new IllegalArgumentException(timeout + " is not a valid timeout");
+			
+			requestTimeout = timeout;
+			return this;
+		}
+		
+		/**
+		 * Enable request hedging: a request still running after the given latency percentile of its provider
+		 * is also sent to the next best provider, the first valid response is kept.<br>
+		 * Disabled by default
+		 * 
+		 * @param percentile the provider latency percentile triggering a hedge, between 0 and 1 (ie 0.95)
+		 * @param budget the maximum amount of hedges per request, between 0 and 1 (ie 0.1)
+		 */
+		public Builder hedging(double percentile, double budget) {
+			hedging = new HedgingPolicy(percentile, budget);
+			return this;
+		}
+		
+		/**
+		 * Set how much lighter than the heaviest beacon chain a provider's chain can be to still be considered up-to-date.
+		 * Up-to-date providers are then preferred by latency and error rate.
+		 * @param tolerance the weight tolerance, 0 by default
+		 */
+		public Builder weightTolerance(long tolerance) {
+			if(tolerance < 0)
+				throw new IllegalArgumentException(tolerance + " is not a valid weight tolerance");
+			
+			weightTolerance = tolerance;
+			return this;
+		}
+		
+		/**
+		 * Use a custom policy to sort providers instead of the default {@link HealthScoringPolicy}
+		 * @param policy the scoring policy
+		 */
+		public Builder scoringPolicy(ScoringPolicy policy) {
+			scoringPolicy = policy;
+			return this;
+		}
+		
+		/**
+		 * Configure providers circuit breakers: after the given amount of consecutive failures a provider is skipped
+		 * until the open duration elapses, then a single probe request decides if it is used again
+		 * @param failureThreshold consecutive failures opening the circuit, 5 by default
+		 * @param openDuration how long the circuit stays open in milliseconds, 10000 by default
+		 */
+		public Builder circuitBreaker(int failureThreshold, long openDuration) {
+			if(failureThreshold <= 0)
+				throw new IllegalArgumentException(failureThreshold + " is not a valid failure threshold");
+			
+			if(openDuration <= 0)
+				throw new IllegalArgumentException(openDuration + " is not a valid open duration");
+			
+			circuitFailureThreshold = failureThreshold;
+			circuitOpenDuration = openDuration;
+			return this;
+		}
+		
+		/**
+		 * Set how many providers must accept a broadcasted transaction before the broadcast returns,
+		 * capped to the amount of available providers
+		 * @param quorum the broadcast quorum, 1 by default
+		 */
+		public Builder broadcastQuorum(int quorum) {
+			if(quorum <= 0)
+				throw new IllegalArgumentException(quorum + " is not a valid quorum");
+			
+			broadcastQuorum = quorum;
+			return this;
+		}
+		
+		/**
+		 * Enable or not request coalescing: concurrent identical requests to a provider share a single HTTP request and its result
+		 * @param coalesce true by default
+		 */
+		public Builder coalesceRequests(boolean coalesce) {
+			coalesceRequests = coalesce;
+			return this;
+		}
+		
+		/**
+		 * Keep snapshots of the tips and of the proof of work informations refreshed in the background,
+		 * so they can be served without waiting for a provider. Disabled by default
+		 * @param rate the refresh rate in milliseconds
+		 */
+		public Builder snapshotsRefreshRate(long rate) {
+			if(rate <= 0)
+				throw new IllegalArgumentException(rate + " is not a valid rate");
+			
+			snapshotsRefreshRate = rate;
+			return this;
+		}
+		
+		/**
+		 * Set how many verified transactions are kept in memory, transactions being immutable they are then served without asking providers
+		 * @param size the maximum amount of cached transactions, 10000 by default, 0 to disable the cache
+		 */
+		public Builder transactionCache(int size) {
+			if(size < 0)
+				throw new IllegalArgumentException(size + " is not a valid cache size");
+			
+			transactionCacheSize = size;
+			return this;
+		}
+		
+		/**
+		 * Persist verified transactions in the given directory, they are served from it after a restart instead of being fetched again.
+		 * Disabled by default
+		 * @param directory the directory holding the store, created if needed
+		 */
+		public Builder transactionStore(Path directory) {
+			transactionStoreDirectory = directory;
+			return this;
+		}
+		
+		/**
+		 * Enable the beacons states cache: main chain beacons with at least the given amount of confirmations are considered final,
+		 * they are not fetched again and their confirmations are derived from the chain height.
+		 * The chain height is refreshed by fetching the latest beacon once a new top beacon is seen or after 10 seconds,
+		 * served confirmations may lag behind the network until then.<br>
+		 * The cache is disabled by default.
+		 * @param safeConfirmations confirmations from which a beacon is final, 100 by default
+		 * @param size the maximum amount of cached beacons, 0 to disable the cache
+		 */
+		public Builder beaconCache(long safeConfirmations, int size) {
+			if(safeConfirmations <= 0)
+				throw new IllegalArgumentException(safeConfirmations + " is not a valid confirmations threshold");
+			
+			if(size < 0)
+				throw new IllegalArgumentException(size + " is not a valid cache size");
+			
+			this.safeConfirmations = safeConfirmations;
+			beaconCacheSize = size;
+			return this;
+		}
+		
+		/**
+		 * Enable the transactions states cache: pending states are kept for the pending TTL, confirmed ones longer
+		 * the more confirmations they have and refused ones for the max TTL.<br>
+		 * Cached states may be served stale: a pending state for up to the pending TTL, a confirmed state's outputs spending
+		 * for up to 10 pending TTLs, only transactions broadcasted through this API are invalidated when claimed
+		 * @param size the maximum amount of cached states, 0 by default which disables the cache
+		 * @param pendingTtl how long a pending state is kept in milliseconds, 2000 by default
+		 * @param maxTtl how long a settled state is kept at most in milliseconds, 300000 by default
+		 */
+		public Builder transactionStateCache(int size, long pendingTtl, long maxTtl) {
+			if(size < 0)
+				throw new IllegalArgumentException(size + " is not a valid cache size");
+			
+			if(pendingTtl <= 0)
+				throw new IllegalArgumentException(pendingTtl + " is not a valid TTL");
+			
+			if(maxTtl < pendingTtl)
+				throw new IllegalArgumentException(maxTtl + " is not a valid TTL");
+			
+			stateCacheSize = size;
+			pendingStateTtl = pendingTtl;
+			maxStateTtl = maxTtl;
+			return this;
+		}
+		
+		/**
+		 * Configure the negative cache: lookups a provider answered as not found are not sent to it again,
+		 * and missing transactions or states are not asked to any provider once none of them knew it, until the TTL elapses
+		 * @param ttl how long a miss is remembered in milliseconds, 1000 by default
+		 * @param size the maximum amount of remembered misses, 10000 by default, 0 to disable the cache
+		 */
+		public Builder negativeCache(long ttl, int size) {
+			if(ttl <= 0)
+				throw new IllegalArgumentException(ttl + " is not a valid TTL");
+			
+			if(size < 0)
+				throw new IllegalArgumentException(size + " is not a valid cache size");
+			
+			negativeCacheTtl = ttl;
+			negativeCacheSize = size;
+			return this;
+		}
+		
+		/**
+		 * Set how many keys are sent at most in a single batched lookup (getTransactions, getTxsState, getBeaconsState, getBalances)
+		 * to providers advertising batched lookups support in their node infos, bigger lookups are split.
+		 * Lookups fall back to one request per key on other providers
+		 * @param size the maximum batch size, 100 by default, 0 to disable batched lookups
+		 */
+		public Builder batchSize(int size) {
+			if(size < 0)
+				throw new IllegalArgumentException(size + " is not a valid batch size");
+			
+			batchSize = size;
+			return this;
+		}
+		
+		/**
+		 * Set the bounds of the tips, beacons and transactions streams poll interval,
+		 * it shortens while new hashes keep coming and grows back when none do
+		 * @param minInterval the shortest interval in milliseconds, 1000 by default
+		 * @param maxInterval the longest interval in milliseconds, 15000 by default
+		 */
+		public Builder eventsPollInterval(long minInterval, long maxInterval) {
+			if(minInterval <= 0)
+				throw new IllegalArgumentException(minInterval + " is not a valid interval");
+			
+			if(maxInterval < minInterval)
+				throw new IllegalArgumentException(maxInterval + " is not a valid interval");
+			
+			eventsMinInterval = minInterval;
+			eventsMaxInterval = maxInterval;
+			return this;
+		}
+		
+		/**
+		 * Set how the confirmation tracker polls the tracked transactions states.
+		 * Each round asks the states of at most roundSize transactions due for a poll,
+		 * a transaction is polled less often the more confirmations it has
+		 * @param interval the delay between two rounds in milliseconds, also the shortest delay between two polls of a transaction, 2000 by default
+		 * @param maxInterval the longest delay between two polls of a transaction in milliseconds, 30000 by default
+		 * @param roundSize the maximum amount of transactions polled per round, 500 by default
+		 */
+		public Builder confirmationPolling(long interval, long maxInterval, int roundSize) {
+			if(interval <= 0)
+				throw new IllegalArgumentException(interval + " is not a valid interval");
+			
+			if(maxInterval < interval)
+				throw new IllegalArgumentException(maxInterval + " is not a valid interval");
+			
+			if(roundSize <= 0)
+				throw new IllegalArgumentException(roundSize + " is not a valid round size");
+			
+			confirmationsInterval = interval;
+			confirmationsMaxInterval = maxInterval;
+			confirmationsRoundSize = roundSize;
+			return this;
+		}
+		
 	}
 
 	public ProvidersWatcher getProvidersWatcher() {
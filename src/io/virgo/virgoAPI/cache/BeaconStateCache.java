@@ -0,0 +1,136 @@
+package io.virgo.virgoAPI.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.virgo.virgoAPI.data.BeaconState;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Cache of beacons states that can't change anymore
+ * <br><br>
+ * Once a beacon is a main chain member with at least the safe amount of confirmations it is considered final:
+ * only its confirmations count still grows, it is derived from the highest chain height seen in fetched states.
+ * Shallow and non main chain beacons are never cached and always fetched again.<br>
+ * The chain height is stale once a new top beacon is seen or after 10 seconds without a fetched state,
+ * it is then to be refreshed by fetching a shallow beacon before serving cached states.
+ */
+public class BeaconStateCache {
+
+	private static final long HEIGHT_TTL = 10000;
+
+	private long safeConfirmations;
+	private TinyLfuCache<HashKey, BeaconState> finalStates;
+	
+	private AtomicLong chainHeight = new AtomicLong(-1);
+	private volatile long heightUpdate = 0;
+	private volatile Sha256Hash tip = null;
+	private volatile boolean tipMoved = false;
+	
+	/**
+	 * @param safeConfirmations The amount of confirmations from which a main chain beacon is considered final
+	 * @param maxSize The maximum amount of cached beacons
+	 */
+	public BeaconStateCache(long safeConfirmations, int maxSize) {
+		if(safeConfirmations <= 0)
+			throw new IllegalArgumentException(safeConfirmations + " is not a valid confirmations threshold");
+		
+		this.safeConfirmations = safeConfirmations;
+		finalStates = new TinyLfuCache<HashKey, BeaconState>(maxSize);
+	}
+	
+	/**
+	 * @param hash The hash of the wanted beacon
+	 * @return The beacon's state with up-to-date confirmations, or null if it has to be fetched
+	 */
+	public BeaconState get(Sha256Hash hash) {
+		BeaconState state = finalStates.get(HashKey.of(hash));
+		if(state == null)
+			return null;
+		
+		long confirmations = Math.max(state.getConfirmations(), chainHeight.get() - state.getHeight());
+		if(confirmations == state.getConfirmations())
+			return state;
+		
+		return new BeaconState(state.getHash(), state.getDifficulty(), true, state.getWeight(), state.getParentBeacon(),
+				confirmations, state.getHeight(), state.getRandomXKey());
+	}
+	
+	/**
+	 * Record a fetched beacon state, it is kept if final
+	 * @param state The fetched state
+	 */
+	public void put(BeaconState state) {
+		onChainHeight(state.getHeight() + state.getConfirmations());
+		
+		if(state.getHash().equals(tip))
+			tipMoved = false;
+		
+		if(state.isMainChainMember() && state.getConfirmations() >= safeConfirmations)
+			finalStates.put(HashKey.of(state.getHash()), state);
+	}
+	
+	/**
+	 * Record the chain height, as the height of a beacon plus its confirmations
+	 * @param height The chain height seen
+	 */
+	public void onChainHeight(long height) {
+		chainHeight.accumulateAndGet(height, Math::max);
+		heightUpdate = System.nanoTime();
+	}
+	
+	/**
+	 * Record the top beacon of the chain as seen in latest beacons or proof of work informations,
+	 * the chain height is stale until this beacon's state is fetched if it's a new one
+	 * @param hash The hash of the top beacon
+	 */
+	public void onTip(Sha256Hash hash) {
+		if(hash == null || hash.equals(tip))
+			return;
+		
+		tip = hash;
+		tipMoved = true;
+	}
+	
+	/**
+	 * @return The latest seen top beacon, null if none
+	 */
+	public Sha256Hash getTip() {
+		return tip;
+	}
+	
+	/**
+	 * @return Whether the chain height has to be refreshed before deriving confirmations from it
+	 */
+	public boolean isHeightStale() {
+		return chainHeight.get() < 0 || tipMoved || (System.nanoTime() - heightUpdate) / 1000000 > HEIGHT_TTL;
+	}
+	
+	/**
+	 * @return Whether the given beacon's state is cached, without counting as a hit or a miss
+	 */
+	public boolean contains(Sha256Hash hash) {
+		return finalStates.containsKey(HashKey.of(hash));
+	}
+	
+	/**
+	 * @return The highest chain height seen, -1 if none
+	 */
+	public long getChainHeight() {
+		return chainHeight.get();
+	}
+	
+	/**
+	 * @return The amount of confirmations from which a main chain beacon is considered final
+	 */
+	public long getSafeConfirmations() {
+		return safeConfirmations;
+	}
+	
+	/**
+	 * @return The underlying cache, with its hit, miss and eviction counters
+	 */
+	public TinyLfuCache<HashKey, BeaconState> getFinalStates() {
+		return finalStates;
+	}
+	
+}
@@ -0,0 +1,80 @@
+package io.virgo.virgoAPI.cache;
+
+/**
+ * Count-min sketch estimating how often keys have been seen lately, with 4 bits counters<br>
+ * Every counter is halved once enough keys have been recorded, so old popularity fades away.
+ */
+class FrequencySketch {
+
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = {0x97cb3127, 0xb0b2d1b5, 0x8c9d3a6d, 0xe1c4a5f3};
+	
+	private byte[] table;
+	private int mask;
+	private int sampleSize;
+	private int additions = 0;
+	
+	/**
+	 * @param capacity The maximum amount of entries of the cache using this sketch
+	 */
+	FrequencySketch(int capacity) {
+		int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+		
+		table = new byte[width * DEPTH];
+		mask = width - 1;
+		sampleSize = Math.max(10 * capacity, 16);
+	}
+	
+	/**
+	 * Record an access to the given key
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean incremented = false;
+		
+		for(int i = 0; i < DEPTH; i++) {
+			int index = indexOf(hash, i);
+			if(table[index] < MAX_COUNT) {
+				table[index]++;
+				incremented = true;
+			}
+		}
+		
+		if(incremented && ++additions >= sampleSize)
+			reset();
+	}
+	
+	/**
+	 * @return The estimated recent access count of the given key, up to 15
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		
+		for(int i = 0; i < DEPTH; i++)
+			frequency = Math.min(frequency, table[indexOf(hash, i)]);
+		
+		return frequency;
+	}
+	
+	private int indexOf(int hash, int row) {
+		int h = (hash ^ SEEDS[row]) * SEEDS[row];
+		h ^= h >>> 17;
+		return row * (mask + 1) + (h & mask);
+	}
+	
+	private void reset() {
+		for(int i = 0; i < table.length; i++)
+			table[i] >>>= 1;
+		
+		additions /= 2;
+	}
+	
+	private static int spread(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x45d9f3b;
+		return hash ^ (hash >>> 16);
+	}
+	
+}
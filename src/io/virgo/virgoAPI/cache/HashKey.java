@@ -0,0 +1,120 @@
+package io.virgo.virgoAPI.cache;
+
+import io.virgo.virgoCryptoLib.Converter;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Compact immutable 32 bytes hash key stored as four longs, to key caches and maps without keeping byte arrays around
+ */
+public final class HashKey {
+
+	public static final int BYTES = 32;
+	
+	private final long w0;
+	private final long w1;
+	private final long w2;
+	private final long w3;
+	
+	HashKey(long w0, long w1, long w2, long w3) {
+		this.w0 = w0;
+		this.w1 = w1;
+		this.w2 = w2;
+		this.w3 = w3;
+	}
+	
+	/**
+	 * @param hash The hash to convert
+	 * @return The key of the given hash
+	 */
+	public static HashKey of(Sha256Hash hash) {
+		return of(hash.toBytes());
+	}
+	
+	/**
+	 * @param bytes The 32 bytes of the hash
+	 * @return The key of the given hash
+	 * @throws IllegalArgumentException if the given array isn't 32 bytes long
+	 */
+	public static HashKey of(byte[] bytes) {
+		if(bytes == null || bytes.length != BYTES)
+			throw new IllegalArgumentException("Hash must be " + BYTES + " bytes long");
+		
+		return new HashKey(readLong(bytes, 0), readLong(bytes, 8), readLong(bytes, 16), readLong(bytes, 24));
+	}
+	
+	/**
+	 * @param index The index of the word, from 0 to 3
+	 * @return The given 8 bytes word, big endian
+	 */
+	public long getWord(int index) {
+		switch(index) {
+		case 0:
+			return w0;
+		case 1:
+			return w1;
+		case 2:
+			return w2;
+		case 3:
+			return w3;
+			default:
+				throw new IndexOutOfBoundsException(index + " is not a valid word index");
+		}
+	}
+	
+	public byte[] toBytes() {
+		byte[] bytes = new byte[BYTES];
+		writeLong(bytes, 0, w0);
+		writeLong(bytes, 8, w1);
+		writeLong(bytes, 16, w2);
+		writeLong(bytes, 24, w3);
+		return bytes;
+	}
+	
+	public Sha256Hash toSha256Hash() {
+		return new Sha256Hash(toString());
+	}
+	
+	/**
+	 * Hashes are uniformly distributed, the first word is enough to spread keys
+	 */
+	static int hash(long w0) {
+		return (int) (w0 ^ (w0 >>> 32));
+	}
+	
+	@Override
+	public int hashCode() {
+		return hash(w0);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+		
+		if(!(obj instanceof HashKey))
+			return false;
+		
+		HashKey other = (HashKey) obj;
+		return w0 == other.w0 && w1 == other.w1 && w2 == other.w2 && w3 == other.w3;
+	}
+	
+	@Override
+	public String toString() {
+		return Converter.bytesToHex(toBytes());
+	}
+	
+	static long readLong(byte[] bytes, int offset) {
+		long value = 0;
+		for(int i = 0; i < 8; i++)
+			value = (value << 8) | (bytes[offset + i] & 0xff);
+		return value;
+	}
+	
+	private static void writeLong(byte[] bytes, int offset, long value) {
+		for(int i = 7; i >= 0; i--) {
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+}
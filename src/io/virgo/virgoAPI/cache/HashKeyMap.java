@@ -0,0 +1,262 @@
+package io.virgo.virgoAPI.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Open addressing map specialized for 32 bytes hash keys
+ * <br><br>
+ * Keys are stored inline as four longs per slot in a single array and values in a parallel array,
+ * so an entry costs no node, no boxed key and no byte array. Slots are probed linearly and removals shift
+ * the following entries back instead of leaving tombstones. Null values aren't allowed.<br>
+ * Lookups by {@link Sha256Hash} read the hash's bytes straight into the probed words, no {@link HashKey} is created.<br>
+ * This class isn't thread safe.
+ */
+public class HashKeyMap<V> {
+
+	private static final float LOAD_FACTOR = 0.6f;
+	
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+	private int resizeThreshold;
+	
+	public HashKeyMap() {
+		this(16);
+	}
+	
+	/**
+	 * @param expectedSize The amount of entries the map should hold without growing
+	 */
+	public HashKeyMap(int expectedSize) {
+		if(expectedSize < 0)
+			throw new IllegalArgumentException(expectedSize + " is not a valid size");
+		
+		int capacity = 16;
+		while(capacity * LOAD_FACTOR < expectedSize)
+			capacity <<= 1;
+		
+		allocate(capacity);
+	}
+	
+	/**
+	 * @param map The entries to copy
+	 */
+	public HashKeyMap(Map<Sha256Hash, ? extends V> map) {
+		this(map.size());
+		
+		for(Map.Entry<Sha256Hash, ? extends V> entry : map.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+	
+	@SuppressWarnings("unchecked")
+	public V get(Sha256Hash hash) {
+		int slot = find(hash.toBytes());
+		return slot < 0 ? null : (V) values[slot];
+	}
+	
+	@SuppressWarnings("unchecked")
+	public V get(HashKey key) {
+		int slot = find(key.getWord(0), key.getWord(1), key.getWord(2), key.getWord(3));
+		return slot < 0 ? null : (V) values[slot];
+	}
+	
+	public boolean containsKey(Sha256Hash hash) {
+		return find(hash.toBytes()) >= 0;
+	}
+	
+	public boolean containsKey(HashKey key) {
+		return find(key.getWord(0), key.getWord(1), key.getWord(2), key.getWord(3)) >= 0;
+	}
+	
+	/**
+	 * @return The previous value of the key, or null if there was none
+	 */
+	public V put(Sha256Hash hash, V value) {
+		byte[] bytes = checked(hash.toBytes());
+		return put(HashKey.readLong(bytes, 0), HashKey.readLong(bytes, 8), HashKey.readLong(bytes, 16), HashKey.readLong(bytes, 24), value);
+	}
+	
+	/**
+	 * @return The previous value of the key, or null if there was none
+	 */
+	public V put(HashKey key, V value) {
+		return put(key.getWord(0), key.getWord(1), key.getWord(2), key.getWord(3), value);
+	}
+	
+	/**
+	 * @return The removed value, or null if the key wasn't mapped
+	 */
+	public V remove(Sha256Hash hash) {
+		return removeSlot(find(hash.toBytes()));
+	}
+	
+	/**
+	 * @return The removed value, or null if the key wasn't mapped
+	 */
+	public V remove(HashKey key) {
+		return removeSlot(find(key.getWord(0), key.getWord(1), key.getWord(2), key.getWord(3)));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private V put(long w0, long w1, long w2, long w3, V value) {
+		if(value == null)
+			throw new NullPointerException("Null values are not allowed");
+		
+		int slot = HashKey.hash(w0) & mask;
+		while(values[slot] != null) {
+			if(matches(slot, w0, w1, w2, w3)) {
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		write(slot, w0, w1, w2, w3, value);
+		
+		if(++size > resizeThreshold)
+			resize(values.length << 1);
+		
+		return null;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int slot) {
+		if(slot < 0)
+			return null;
+		
+		V removed = (V) values[slot];
+		size--;
+		
+		//shift back the following entries of the probe sequence so lookups never meet a hole before their key
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while(values[next] != null) {
+			int home = HashKey.hash(keys[next << 2]) & mask;
+			
+			if(((next - home) & mask) >= ((next - hole) & mask)) {
+				System.arraycopy(keys, next << 2, keys, hole << 2, 4);
+				values[hole] = values[next];
+				hole = next;
+			}
+			
+			next = (next + 1) & mask;
+		}
+		
+		values[hole] = null;
+		return removed;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+	
+	/**
+	 * @return A copy of the values, in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<V> values() {
+		ArrayList<V> result = new ArrayList<V>(size);
+		for(Object value : values)
+			if(value != null)
+				result.add((V) value);
+		return result;
+	}
+	
+	/**
+	 * Call the given action for each entry, in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<HashKey, V> action) {
+		for(int slot = 0; slot < values.length; slot++)
+			if(values[slot] != null)
+				action.accept(keyAt(slot), (V) values[slot]);
+	}
+	
+	private int find(byte[] bytes) {
+		checked(bytes);
+		return find(HashKey.readLong(bytes, 0), HashKey.readLong(bytes, 8), HashKey.readLong(bytes, 16), HashKey.readLong(bytes, 24));
+	}
+	
+	private int find(long w0, long w1, long w2, long w3) {
+		int slot = HashKey.hash(w0) & mask;
+		
+		while(values[slot] != null) {
+			if(matches(slot, w0, w1, w2, w3))
+				return slot;
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		return -1;
+	}
+	
+	private boolean matches(int slot, long w0, long w1, long w2, long w3) {
+		int base = slot << 2;
+		return keys[base] == w0 && keys[base + 1] == w1 && keys[base + 2] == w2 && keys[base + 3] == w3;
+	}
+	
+	private static byte[] checked(byte[] bytes) {
+		if(bytes == null || bytes.length != HashKey.BYTES)
+			throw new IllegalArgumentException("Hash must be " + HashKey.BYTES + " bytes long");
+		
+		return bytes;
+	}
+	
+	private HashKey keyAt(int slot) {
+		int base = slot << 2;
+		return new HashKey(keys[base], keys[base + 1], keys[base + 2], keys[base + 3]);
+	}
+	
+	private void write(int slot, long w0, long w1, long w2, long w3, Object value) {
+		int base = slot << 2;
+		keys[base] = w0;
+		keys[base + 1] = w1;
+		keys[base + 2] = w2;
+		keys[base + 3] = w3;
+		values[slot] = value;
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity << 2];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+	
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		
+		allocate(capacity);
+		
+		for(int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+			if(oldValues[oldSlot] == null)
+				continue;
+			
+			int base = oldSlot << 2;
+			int slot = HashKey.hash(oldKeys[base]) & mask;
+			while(values[slot] != null)
+				slot = (slot + 1) & mask;
+			
+			write(slot, oldKeys[base], oldKeys[base + 1], oldKeys[base + 2], oldKeys[base + 3], oldValues[oldSlot]);
+		}
+	}
+	
+}
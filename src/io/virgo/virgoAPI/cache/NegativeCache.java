@@ -0,0 +1,87 @@
+package io.virgo.virgoAPI.cache;
+
+/**
+ * Short-lived cache of lookups that gave nothing, so unknown keys don't cost a round trip to every provider each time
+ * <br><br>
+ * Misses are recorded per provider and method, and globally once no provider knows the key.
+ * They are forgotten after the TTL since the key may just not be propagated yet.
+ */
+public class NegativeCache {
+
+	private long ttl;
+	private TinyLfuCache<String, Long> misses;
+	
+	/**
+	 * @param ttl How long a miss is remembered, in milliseconds
+	 * @param maxSize The maximum amount of remembered misses
+	 */
+	public NegativeCache(long ttl, int maxSize) {
+		if(ttl <= 0)
+			throw new IllegalArgumentException(ttl + " is not a valid TTL");
+		
+		this.ttl = ttl;
+		misses = new TinyLfuCache<String, Long>(maxSize);
+	}
+	
+	/**
+	 * @param hostname The provider's hostname
+	 * @param method The looked up method
+	 * @return true if the provider recently didn't know this method
+	 */
+	public boolean isMissing(String hostname, String method) {
+		return isMissing(hostname + method);
+	}
+	
+	/**
+	 * @param method The looked up method
+	 * @return true if no provider recently knew this method
+	 */
+	public boolean isMissing(String method) {
+		Long expiresAt = misses.get(method);
+		if(expiresAt == null)
+			return false;
+		
+		if(System.nanoTime() - expiresAt >= 0) {
+			misses.invalidate(method);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Remember that a provider doesn't know a method
+	 */
+	public void recordMiss(String hostname, String method) {
+		recordMiss(hostname + method);
+	}
+	
+	/**
+	 * Remember that no provider knows a method
+	 */
+	public void recordMiss(String method) {
+		misses.put(method, System.nanoTime() + ttl * 1000000);
+	}
+	
+	/**
+	 * Forget a provider's miss, ie because the looked up object has just been broadcasted to it
+	 */
+	public void invalidate(String hostname, String method) {
+		invalidate(hostname + method);
+	}
+	
+	/**
+	 * Forget a global miss, ie because the looked up object has just been broadcasted
+	 */
+	public void invalidate(String method) {
+		misses.invalidate(method);
+	}
+	
+	/**
+	 * @return The underlying cache, with its hit, miss and eviction counters
+	 */
+	public TinyLfuCache<String, Long> getMisses() {
+		return misses;
+	}
+	
+}
@@ -0,0 +1,200 @@
+package io.virgo.virgoAPI.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded cache with frequency aware eviction (W-TinyLFU)
+ * <br><br>
+ * New entries go through a small LRU window, then have to be accessed more often than the main space's eviction victim
+ * to be admitted in it. The main space is a segmented LRU where entries accessed again are protected from eviction.
+ * This keeps hot entries cached while one-off scans don't flush them.
+ */
+public class TinyLfuCache<K, V> {
+
+	private int maxSize;
+	private int windowCapacity;
+	private int protectedCapacity;
+	
+	private LinkedHashMap<K, V> window = new LinkedHashMap<K, V>(16, 0.75f, true);
+	private LinkedHashMap<K, V> probation = new LinkedHashMap<K, V>(16, 0.75f, true);
+	private LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<K, V>(16, 0.75f, true);
+	
+	private FrequencySketch sketch;
+	
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	
+	/**
+	 * @param maxSize The maximum amount of entries kept
+	 */
+	public TinyLfuCache(int maxSize) {
+		if(maxSize <= 0)
+			throw new IllegalArgumentException(maxSize + " is not a valid cache size");
+		
+		this.maxSize = maxSize;
+		windowCapacity = Math.max(1, maxSize / 100);
+		protectedCapacity = (int) ((maxSize - windowCapacity) * 0.8);
+		sketch = new FrequencySketch(maxSize);
+	}
+	
+	/**
+	 * @param key The key to look for
+	 * @return The cached value, or null if absent
+	 */
+	public synchronized V get(K key) {
+		sketch.increment(key);
+		
+		V value = window.get(key);
+		
+		if(value == null) {
+			value = protectedSegment.get(key);
+			
+			if(value == null) {
+				value = probation.remove(key);
+				
+				//accessed again while on probation, protect it
+				if(value != null)
+					protect(key, value);
+			}
+		}
+		
+		if(value != null)
+			hits++;
+		else
+			misses++;
+		
+		return value;
+	}
+	
+	/**
+	 * @param key The key to look for
+	 * @return Whether the key is cached, without recording an access
+	 */
+	public synchronized boolean containsKey(K key) {
+		return window.containsKey(key) || protectedSegment.containsKey(key) || probation.containsKey(key);
+	}
+	
+	/**
+	 * Cache a value, it may be evicted right away if it's less popular than the entries already cached
+	 */
+	public synchronized void put(K key, V value) {
+		if(window.containsKey(key)) {
+			window.put(key, value);
+			return;
+		}
+		
+		if(protectedSegment.containsKey(key)) {
+			protectedSegment.put(key, value);
+			return;
+		}
+		
+		if(probation.containsKey(key)) {
+			probation.put(key, value);
+			return;
+		}
+		
+		sketch.increment(key);
+		window.put(key, value);
+		
+		if(window.size() > windowCapacity)
+			admit(removeEldest(window));
+	}
+	
+	/**
+	 * Remove the given key from the cache
+	 */
+	public synchronized void invalidate(K key) {
+		if(window.remove(key) == null && protectedSegment.remove(key) == null)
+			probation.remove(key);
+	}
+	
+	/**
+	 * Remove every entry from the cache
+	 */
+	public synchronized void clear() {
+		window.clear();
+		probation.clear();
+		protectedSegment.clear();
+	}
+	
+	/**
+	 * @return The amount of entries currently cached
+	 */
+	public synchronized int size() {
+		return window.size() + probation.size() + protectedSegment.size();
+	}
+	
+	/**
+	 * @return The maximum amount of entries kept
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * @return The amount of lookups that found their key
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	
+	/**
+	 * @return The amount of lookups that didn't find their key
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	
+	/**
+	 * @return The amount of entries evicted, or refused, because the cache was full
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+	
+	/**
+	 * Admit an entry leaving the window in the main space if it's more popular than the main space's victim
+	 */
+	private void admit(Map.Entry<K, V> candidate) {
+		if(probation.size() + protectedSegment.size() < maxSize - windowCapacity) {
+			probation.put(candidate.getKey(), candidate.getValue());
+			return;
+		}
+		
+		evictions++;
+		
+		LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+		if(victimSegment.isEmpty())
+			return;
+		
+		K victim = victimSegment.keySet().iterator().next();
+		
+		if(sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+			victimSegment.remove(victim);
+			probation.put(candidate.getKey(), candidate.getValue());
+		}
+	}
+	
+	private void protect(K key, V value) {
+		protectedSegment.put(key, value);
+		
+		//make room by sending the least recently used protected entry back to probation
+		if(protectedSegment.size() > protectedCapacity) {
+			Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+			probation.put(demoted.getKey(), demoted.getValue());
+		}
+	}
+	
+	private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+		Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+		Map.Entry<K, V> eldest = iterator.next();
+		Map.Entry<K, V> copy = Map.entry(eldest.getKey(), eldest.getValue());
+		iterator.remove();
+		
+		return copy;
+	}
+	
+}
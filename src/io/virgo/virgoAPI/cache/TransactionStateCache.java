@@ -0,0 +1,118 @@
+package io.virgo.virgoAPI.cache;
+
+import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.data.TransactionState;
+import io.virgo.virgoAPI.data.TxStatus;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Cache of transactions states whose freshness depends on the state itself
+ * <br><br>
+ * Pending states and states with pending claimers are kept for the short pending TTL.
+ * Confirmed states are kept longer the more confirmations they have, up to the max TTL,
+ * but no more than 10 pending TTLs while one of their outputs is unspent since it can be claimed at any time.
+ * Refused states are kept for the max TTL.<br>
+ * Transactions whose outputs are claimed by a locally broadcasted transaction should be invalidated.
+ */
+public class TransactionStateCache {
+
+	private long pendingTtl;
+	private long maxTtl;
+	private TinyLfuCache<HashKey, Entry> entries;
+	
+	/**
+	 * @param maxSize The maximum amount of cached states
+	 * @param pendingTtl How long a pending state is kept, in milliseconds
+	 * @param maxTtl How long a settled state is kept at most, in milliseconds
+	 */
+	public TransactionStateCache(int maxSize, long pendingTtl, long maxTtl) {
+		if(pendingTtl <= 0)
+			throw new IllegalArgumentException(pendingTtl + " is not a valid TTL");
+		
+		if(maxTtl < pendingTtl)
+			throw new IllegalArgumentException(maxTtl + " is not a valid TTL");
+		
+		this.pendingTtl = pendingTtl;
+		this.maxTtl = maxTtl;
+		entries = new TinyLfuCache<HashKey, Entry>(maxSize);
+	}
+	
+	/**
+	 * @param hash The hash of the transaction
+	 * @return The cached state if still fresh, null otherwise
+	 */
+	public TransactionState get(Sha256Hash hash) {
+		HashKey key = HashKey.of(hash);
+		Entry entry = entries.get(key);
+		if(entry == null)
+			return null;
+		
+		if(System.nanoTime() - entry.expiresAt >= 0) {
+			entries.invalidate(key);
+			return null;
+		}
+		
+		return entry.state;
+	}
+	
+	/**
+	 * Cache a fetched state for as long as its content allows
+	 */
+	public void put(TransactionState state) {
+		long ttl = getTtl(state);
+		entries.put(HashKey.of(state.getHash()), new Entry(state, System.nanoTime() + ttl * 1000000));
+	}
+	
+	/**
+	 * Forget a transaction's state, ie because one of its outputs has just been claimed
+	 */
+	public void invalidate(Sha256Hash hash) {
+		entries.invalidate(HashKey.of(hash));
+	}
+	
+	/**
+	 * @return How long the given state can be served from cache, in milliseconds
+	 */
+	public long getTtl(TransactionState state) {
+		TxStatus status = state.getStatus();
+		
+		if(status.isRefused())
+			return maxTtl;
+		
+		if(status.isPending())
+			return pendingTtl;
+		
+		long ttl = Math.min(maxTtl, pendingTtl * (1 + Math.max(0, state.getConfirmations())));
+		
+		for(TxOutput output : state.getOutputsMap().values()) {
+			for(TxStatus claimer : output.getClaimers().values())
+				if(claimer.isPending())
+					return pendingTtl;
+			
+			if(!output.isSpent())
+				ttl = Math.min(ttl, pendingTtl * 10);
+		}
+		
+		return ttl;
+	}
+	
+	/**
+	 * @return The underlying cache, with its hit, miss and eviction counters
+	 */
+	public TinyLfuCache<HashKey, ?> getEntries() {
+		return entries;
+	}
+	
+	private static class Entry {
+		
+		private TransactionState state;
+		private long expiresAt;
+		
+		private Entry(TransactionState state, long expiresAt) {
+			this.state = state;
+			this.expiresAt = expiresAt;
+		}
+		
+	}
+	
+}
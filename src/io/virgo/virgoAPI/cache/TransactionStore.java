@@ -0,0 +1,535 @@
+package io.virgo.virgoAPI.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.data.Transaction;
+import io.virgo.virgoCryptoLib.Converter;
+import io.virgo.virgoCryptoLib.ECDSASignature;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Persistent store of verified transactions, so a restarted client can serve them without asking providers again
+ * <br><br>
+ * Transactions are appended to a memory-mapped log, each record being checksummed. A memory-mapped open addressing
+ * hash index gives the offset of each transaction in the log.<br>
+ * On opening, the log is replayed from the last indexed position: records written before a crash are indexed again
+ * and the log is cut at the first incomplete record. A missing or damaged index is rebuilt from the whole log.
+ * <br><br>
+ * The log is limited to 2GB, transactions are not stored anymore once it is full. Transactions that couldn't be
+ * stored are counted, see {@link #getFailedWrites()}.
+ */
+public class TransactionStore {
+
+	private static final int LOG_MAGIC = 0x5654584c;
+	private static final int INDEX_MAGIC = 0x56545849;
+	private static final int VERSION = 1;
+
+	private static final int LOG_HEADER = 8;
+	private static final int RECORD_HEADER = 8;
+	private static final int INITIAL_LOG_CAPACITY = 16 * 1024 * 1024;
+
+	private static final int INDEX_HEADER = 32;
+	private static final int SLOT_SIZE = 40;
+	private static final int INITIAL_SLOTS = 4096;
+
+	private Path logPath;
+	private Path indexPath;
+
+	private FileChannel logChannel;
+	private MappedByteBuffer log;
+	private int writePosition;
+
+	private FileChannel indexChannel;
+	private MappedByteBuffer index;
+	private int slots;
+	private int entries;
+
+	private int failedWrites = 0;
+	private boolean closed = false;
+
+	/**
+	 * Open the store kept in the given directory, creating it if needed
+	 * @param directory The directory holding the store's files
+	 * @throws IOException if the store can't be opened
+	 */
+	public TransactionStore(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		logPath = directory.resolve("transactions.log");
+		indexPath = directory.resolve("transactions.idx");
+
+		openLog();
+		openIndex();
+	}
+
+	/**
+	 * @param hash The hash of the wanted transaction
+	 * @return The stored transaction, or null if not stored
+	 */
+	public synchronized Transaction get(Sha256Hash hash) {
+		if(closed)
+			return null;
+
+		int offset = lookup(hash.toBytes());
+		if(offset < 0)
+			return null;
+
+		byte[] payload = readRecord(offset);
+		if(payload == null)
+			return null;
+
+		try {
+			Transaction tx = decode(ByteBuffer.wrap(payload));
+
+			if(!tx.getHash().equals(hash))
+				return null;
+
+			return tx;
+		}catch(RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return true if the given transaction is stored
+	 */
+	public synchronized boolean contains(Sha256Hash hash) {
+		return !closed && lookup(hash.toBytes()) >= 0;
+	}
+
+	/**
+	 * Append a verified transaction to the store, does nothing if already stored
+	 * @param transaction The transaction to store
+	 */
+	public synchronized void put(Transaction transaction) {
+		if(closed)
+			return;
+
+		byte[] hash = transaction.getHash().toBytes();
+		if(lookup(hash) >= 0)
+			return;
+
+		byte[] payload;
+		try {
+			payload = encode(transaction);
+		}catch(RuntimeException e) {
+			return;
+		}
+
+		try {
+			int offset = writePosition;
+			if(!append(payload)) {
+				failedWrites++;
+				return;
+			}
+
+			insert(hash, offset);
+			index.putLong(24, writePosition);
+		}catch(IOException e) {
+			failedWrites++;
+		}
+	}
+
+	/**
+	 * @return The amount of stored transactions
+	 */
+	public synchronized int size() {
+		return entries;
+	}
+
+	/**
+	 * @return The amount of transactions that couldn't be stored, because the log is full or the disk failed
+	 */
+	public synchronized int getFailedWrites() {
+		return failedWrites;
+	}
+
+	/**
+	 * Force written transactions to the disk
+	 */
+	public synchronized void flush() {
+		if(closed)
+			return;
+
+		log.force();
+		index.force();
+	}
+
+	/**
+	 * Flush and close the store, it can't be used anymore afterward
+	 */
+	public synchronized void close() {
+		if(closed)
+			return;
+
+		flush();
+		closed = true;
+
+		try {
+			logChannel.close();
+			indexChannel.close();
+		}catch(IOException e) {}
+	}
+
+	/**
+	 * Map the log and replay it to find where the last complete record ends
+	 */
+	private void openLog() throws IOException {
+		logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		long size = logChannel.size();
+		if(size > Integer.MAX_VALUE)
+			throw new IOException(logPath + " is too large");
+
+		boolean created = size < LOG_HEADER;
+		log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_LOG_CAPACITY));
+
+		if(created) {
+			log.putInt(0, LOG_MAGIC);
+			log.putInt(4, VERSION);
+		}else if(log.getInt(0) != LOG_MAGIC || log.getInt(4) != VERSION) {
+			throw new IOException(logPath + " is not a transaction log");
+		}
+
+		writePosition = LOG_HEADER;
+		while(true) {
+			int length = recordLength(writePosition);
+			if(length < 0 || readRecord(writePosition) == null)
+				break;
+
+			writePosition += RECORD_HEADER + length;
+		}
+
+		//wipe what remains of a record interrupted by a crash so it's not mistaken for a valid one later
+		int length = writePosition + 4 <= log.capacity() ? log.getInt(writePosition) : 0;
+		if(length != 0) {
+			int end = length > 0 ? (int) Math.min(log.capacity(), (long) writePosition + RECORD_HEADER + length) : writePosition + RECORD_HEADER;
+			for(int i = writePosition; i < end; i++)
+				log.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Map the index, index the records appended after its last update or rebuild it if it can't be trusted
+	 */
+	private void openIndex() throws IOException {
+		indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		//the header is read without mapping the file, an untrusted index is then reset in place
+		long size = indexChannel.size();
+		if(size >= INDEX_HEADER) {
+			ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+			int read = indexChannel.read(header, 0);
+
+			int headerSlots = header.getInt(8);
+			long indexedUpTo = header.getLong(24);
+
+			boolean valid = read == INDEX_HEADER && header.getInt(0) == INDEX_MAGIC && header.getInt(4) == VERSION
+					&& headerSlots > 0 && Integer.bitCount(headerSlots) == 1 && size == INDEX_HEADER + (long) headerSlots * SLOT_SIZE
+					&& indexedUpTo >= LOG_HEADER && indexedUpTo <= writePosition;
+
+			if(valid) {
+				index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				slots = headerSlots;
+				entries = index.getInt(12);
+				replay((int) indexedUpTo);
+				return;
+			}
+		}
+
+		indexChannel.truncate(0);
+		resetIndex(INITIAL_SLOTS);
+		replay(LOG_HEADER);
+	}
+
+	/**
+	 * Index every log record from the given position
+	 */
+	private void replay(int from) throws IOException {
+		int position = from;
+
+		while(position < writePosition) {
+			int length = recordLength(position);
+
+			byte[] hash = new byte[32];
+			ByteBuffer record = log.duplicate();
+			record.position(position + RECORD_HEADER);
+			record.get(hash);
+
+			if(lookup(hash) < 0)
+				insert(hash, position);
+
+			position += RECORD_HEADER + length;
+		}
+
+		index.putLong(24, writePosition);
+	}
+
+	/**
+	 * Empty the index file in place and size it for the given amount of slots<br>
+	 * The file is only ever grown and never replaced, it can't be while mapped on some systems.
+	 * Until the index is filled again it claims to index nothing, so a crash in between makes the next opening rebuild it.
+	 */
+	private void resetIndex(int newSlots) throws IOException {
+		MappedByteBuffer newIndex = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) newSlots * SLOT_SIZE);
+
+		for(int i = 0; i < newIndex.capacity(); i += 8)
+			newIndex.putLong(i, 0);
+
+		newIndex.putInt(0, INDEX_MAGIC);
+		newIndex.putInt(4, VERSION);
+		newIndex.putInt(8, newSlots);
+		newIndex.putInt(12, 0);
+
+		index = newIndex;
+		slots = newSlots;
+		entries = 0;
+	}
+
+	/**
+	 * @return The log offset of the given hash's record, or -1 if not indexed
+	 */
+	private int lookup(byte[] hash) {
+		byte[] slotHash = new byte[32];
+		int mask = slots - 1;
+
+		for(int slot = slotOf(hash, mask); ; slot = (slot + 1) & mask) {
+			int position = INDEX_HEADER + slot * SLOT_SIZE;
+			long offset = index.getLong(position + 32);
+
+			if(offset == 0)
+				return -1;
+
+			ByteBuffer view = index.duplicate();
+			view.position(position);
+			view.get(slotHash);
+
+			//the record is checked too, the index may be ahead of a log cut by a crash
+			if(Arrays.equals(hash, slotHash) && recordHashEquals((int) (offset - 1), hash))
+				return (int) (offset - 1);
+		}
+	}
+
+	/**
+	 * Index a record, doubling the index when it gets half full
+	 */
+	private void insert(byte[] hash, int offset) throws IOException {
+		if((entries + 1) * 2 > slots) {
+			grow();
+
+			//growing indexed the whole log again, including this record if already appended
+			if(lookup(hash) >= 0)
+				return;
+		}
+
+		int mask = slots - 1;
+		int slot = slotOf(hash, mask);
+		while(index.getLong(INDEX_HEADER + slot * SLOT_SIZE + 32) != 0)
+			slot = (slot + 1) & mask;
+
+		//write the hash before the offset, a slot is only considered used once its offset is set
+		int position = INDEX_HEADER + slot * SLOT_SIZE;
+		ByteBuffer view = index.duplicate();
+		view.position(position);
+		view.put(hash);
+		index.putLong(position + 32, offset + 1L);
+
+		entries++;
+		index.putInt(12, entries);
+	}
+
+	private void grow() throws IOException {
+		int newSlots = slots * 2;
+		if(INDEX_HEADER + (long) newSlots * SLOT_SIZE > Integer.MAX_VALUE)
+			throw new IOException("Transaction index is full");
+
+		resetIndex(newSlots);
+		replay(LOG_HEADER);
+	}
+
+	/**
+	 * Append a record to the log, growing its mapping if needed
+	 * @return false if the log is full
+	 */
+	private boolean append(byte[] payload) throws IOException {
+		long end = (long) writePosition + RECORD_HEADER + payload.length;
+		if(end + 4 > Integer.MAX_VALUE)
+			return false;
+
+		if(end + 4 > log.capacity())
+			log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, Math.max(end + 4, 2L * log.capacity())));
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		ByteBuffer view = log.duplicate();
+		view.position(writePosition + RECORD_HEADER);
+		view.put(payload);
+		log.putInt(writePosition + 4, (int) crc.getValue());
+		log.putInt(writePosition, payload.length);
+
+		writePosition = (int) end;
+		return true;
+	}
+
+	/**
+	 * @return The payload length of the record at the given offset, or -1 if there is none
+	 */
+	private int recordLength(int offset) {
+		if(offset + RECORD_HEADER > log.capacity())
+			return -1;
+
+		int length = log.getInt(offset);
+		if(length <= 0 || (long) offset + RECORD_HEADER + length > log.capacity())
+			return -1;
+
+		return length;
+	}
+
+	/**
+	 * @return The payload of the record at the given offset, or null if incomplete or corrupted
+	 */
+	private byte[] readRecord(int offset) {
+		int length = recordLength(offset);
+		if(length < 32)
+			return null;
+
+		byte[] payload = new byte[length];
+		ByteBuffer view = log.duplicate();
+		view.position(offset + RECORD_HEADER);
+		view.get(payload);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		if((int) crc.getValue() != log.getInt(offset + 4))
+			return null;
+
+		return payload;
+	}
+
+	private boolean recordHashEquals(int offset, byte[] hash) {
+		if(recordLength(offset) < 32)
+			return false;
+
+		byte[] recordHash = new byte[32];
+		ByteBuffer view = log.duplicate();
+		view.position(offset + RECORD_HEADER);
+		view.get(recordHash);
+
+		return Arrays.equals(hash, recordHash);
+	}
+
+	private static int slotOf(byte[] hash, int mask) {
+		//hashes are uniformly distributed, their first bytes are a good enough slot
+		int h = (hash[0] & 0xff) << 24 | (hash[1] & 0xff) << 16 | (hash[2] & 0xff) << 8 | (hash[3] & 0xff);
+		return h & mask;
+	}
+
+	private static byte[] encode(Transaction transaction) {
+		ArrayList<byte[]> outputs = new ArrayList<byte[]>();
+		int size = 32 + 8 + 1 + 4 + 4 + 4;
+
+		for(TxOutput output : transaction.getOutputsMap().values()) {
+			byte[] outputBytes = output.toString().getBytes(StandardCharsets.UTF_8);
+			outputs.add(outputBytes);
+			size += 2 + outputBytes.length;
+		}
+
+		byte[] first;
+		byte[] second;
+		boolean isBeacon = transaction.getParentBeacon() != null;
+
+		if(isBeacon) {
+			first = transaction.getParentBeacon().toBytes();
+			second = transaction.getNonce();
+		}else {
+			first = Converter.hexToBytes(transaction.getSignature().toHexString());
+			second = transaction.getPublicKey();
+		}
+
+		size += 4 + first.length + second.length;
+		size += 32 * (transaction.getParentsHashes().length + transaction.getInputsHashes().length);
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.put(transaction.getHash().toBytes());
+		buffer.putLong(transaction.getDate());
+		buffer.put((byte) (isBeacon ? 1 : 0));
+
+		buffer.putShort((short) first.length);
+		buffer.put(first);
+		buffer.putShort((short) second.length);
+		buffer.put(second);
+
+		buffer.putInt(transaction.getParentsHashes().length);
+		for(Sha256Hash parent : transaction.getParentsHashes())
+			buffer.put(parent.toBytes());
+
+		buffer.putInt(transaction.getInputsHashes().length);
+		for(Sha256Hash input : transaction.getInputsHashes())
+			buffer.put(input.toBytes());
+
+		buffer.putInt(outputs.size());
+		for(byte[] output : outputs) {
+			buffer.putShort((short) output.length);
+			buffer.put(output);
+		}
+
+		return buffer.array();
+	}
+
+	/**
+	 * Rebuild a stored transaction, it has been verified before being stored and the record's checksum matches
+	 * so its hash and signature aren't computed again
+	 */
+	private static Transaction decode(ByteBuffer buffer) {
+		Sha256Hash hash = readHash(buffer);
+		long date = buffer.getLong();
+		boolean isBeacon = buffer.get() == 1;
+
+		byte[] first = new byte[buffer.getShort() & 0xffff];
+		buffer.get(first);
+		byte[] second = new byte[buffer.getShort() & 0xffff];
+		buffer.get(second);
+
+		Sha256Hash[] parents = new Sha256Hash[buffer.getInt()];
+		for(int i = 0; i < parents.length; i++)
+			parents[i] = readHash(buffer);
+
+		Sha256Hash[] inputs = new Sha256Hash[buffer.getInt()];
+		for(int i = 0; i < inputs.length; i++)
+			inputs[i] = readHash(buffer);
+
+		HashMap<String, TxOutput> outputs = new HashMap<String, TxOutput>();
+		int outputsCount = buffer.getInt();
+		for(int i = 0; i < outputsCount; i++) {
+			byte[] outputBytes = new byte[buffer.getShort() & 0xffff];
+			buffer.get(outputBytes);
+
+			TxOutput output = TxOutput.fromString(new String(outputBytes, StandardCharsets.UTF_8));
+			outputs.put(output.getAddress(), output);
+		}
+
+		if(isBeacon)
+			return new Transaction(hash, null, null, parents, inputs, outputs, new Sha256Hash(Converter.bytesToHex(first)), second, date);
+
+		return new Transaction(hash, ECDSASignature.fromByteArray(first), second, parents, inputs, outputs, null, null, date);
+	}
+
+	private static Sha256Hash readHash(ByteBuffer buffer) {
+		byte[] bytes = new byte[32];
+		buffer.get(bytes);
+		return new Sha256Hash(Converter.bytesToHex(bytes));
+	}
+
+}
@@ -10,9 +10,8 @@ import org.json.JSONObject;
 import io.virgo.virgoAPI.VirgoAPI;
 import io.virgo.virgoAPI.data.TransactionState;
 import io.virgo.virgoAPI.data.TxStatus;
-import io.virgo.virgoAPI.network.Provider;
-import io.virgo.virgoAPI.network.Response;
 import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.requestsResponses.BroadcastResponse;
 import io.virgo.virgoAPI.requestsResponses.GetAddressesTxsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetTipsResponse;
 import io.virgo.virgoAPI.requestsResponses.GetTxsStateResponse;
@@ -43,6 +42,7 @@ public class TransactionBuilder {
 	private HashMap<String, TxOutput> outputs = new HashMap<String, TxOutput>();
 	
 	private boolean validateAmounts = true;
+	private long tipsMaxAge = 10000;
 	
 	public TransactionBuilder() {
 		
@@ -115,6 +115,19 @@ public class TransactionBuilder {
 		return this;
 	}
 	
+	/**
+	 * Set how old the tips used as parents can be when background refreshed snapshots are enabled,
+	 * an older snapshot is refreshed before sending
+	 * 10000 milliseconds by default
+	 * 
+	 * @return The current TransactionBuilder
+	 */
+	public TransactionBuilder tipsMaxAge(long tipsMaxAge) {
+		this.tipsMaxAge = tipsMaxAge;
+		
+		return this;
+	}
+	
 	/**
 	 * Sign and broadcast the transaction
 	 * 
@@ -240,8 +253,8 @@ public class TransactionBuilder {
 			throw new IllegalStateException("No input transaction found");
 		
 		if(parents.size() == 0) {
-			//Get the tips we will attach the transaction to from peers
-			GetTipsResponse getTipsResp = VirgoAPI.getInstance().getTips();
+			//Get the tips we will attach the transaction to, from the refreshed snapshot if recent enough
+			GetTipsResponse getTipsResp = VirgoAPI.getInstance().getTips(tipsMaxAge);
 			if(getTipsResp.getResponseCode() != ResponseCode.OK)
 				throw new IOException("Unable to get last tips from remote");
 			
@@ -286,15 +299,10 @@ public class TransactionBuilder {
 		ECDSASignature sig = address.sign(txHash, privateKey);
 		transaction.put("sig", sig.toHexString());
 		
-		boolean ok = false;
-		//broadcast it and return raw transaction
-		for(Provider provider : VirgoAPI.getInstance().getProvidersWatcher().getProvidersByScore()) {
-			Response resp = provider.post("/tx", transaction.toString());
-			if(!ok && resp.getResponseCode() == ResponseCode.OK)
-				ok = true;
-		}
+		//broadcast it to all providers at once and return raw transaction once the quorum accepted it
+		BroadcastResponse broadcastResp = VirgoAPI.getInstance().broadcastTransaction(transaction);
 		
-		if(ok) return transaction;
+		if(broadcastResp.getResponseCode() == ResponseCode.OK) return transaction;
 		
 		return null;
 	}
@@ -1,7 +1,9 @@
 package io.virgo.virgoAPI.data;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
+import io.virgo.virgoAPI.network.JsonReader;
 import io.virgo.virgoCryptoLib.Sha256Hash;
 
 /**
@@ -37,4 +39,42 @@ public class AddressTxs {
 		return size;
 	}
 	
+	/**
+	 * Decode a page of an address's transactions straight from a provider's response stream
+	 * 
+	 * @param address The address the page is about
+	 * @param type The kind of transactions listed, "txs", "inputs", "outputs" or "unspent"
+	 * @param reader The reader positioned on the page object
+	 * @return The decoded page, or null if incomplete
+	 * @throws IOException if the stream can't be read or is malformed
+	 */
+	public static AddressTxs fromJSONStream(String address, String type, JsonReader reader) throws IOException {
+		ArrayList<Sha256Hash> transactions = null;
+		Integer size = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String name = reader.nextName();
+			
+			if(name.equals(type)) {
+				transactions = new ArrayList<Sha256Hash>();
+				
+				reader.beginArray();
+				while(reader.hasNext())
+					transactions.add(new Sha256Hash(reader.nextString()));
+				reader.endArray();
+			}else if(name.equals("size")) {
+				size = reader.nextInt();
+			}else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		if(transactions == null || size == null)
+			return null;
+		
+		return new AddressTxs(address, transactions, size);
+	}
+	
 }
@@ -1,5 +1,6 @@
 package io.virgo.virgoAPI.data;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,6 +10,7 @@ import org.json.JSONObject;
 
 import io.virgo.virgoAPI.VirgoAPI;
 import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.network.JsonReader;
 import io.virgo.virgoCryptoLib.Converter;
 import io.virgo.virgoCryptoLib.ECDSA;
 import io.virgo.virgoCryptoLib.ECDSASignature;
@@ -186,36 +188,133 @@ public class Transaction {
 	
 	public static Transaction fromJSONObject(JSONObject JSONRepresentation) {
 		
-		if(JSONRepresentation.has("genesis")) {
-			HashMap<String, TxOutput> genesisOutputs = new HashMap<String, TxOutput>();
-			genesisOutputs.put("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv", new TxOutput("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv",(long) (100000 * Math.pow(10, VirgoAPI.DECIMALS))));
-			return new Transaction(new Sha256Hash("025a6f04e7047b713aaba7fc5003c8266302918c25d1526507becad795b01f3a"),null,null,new Sha256Hash[0],new Sha256Hash[0], genesisOutputs, null, null, 0);
+		if(JSONRepresentation.has("genesis"))
+			return genesis();
+		
+		boolean isBeacon = JSONRepresentation.has("parentBeacon");
+		
+		JSONArray parents = JSONRepresentation.getJSONArray("parents");
+		JSONArray inputs = isBeacon ? new JSONArray() : JSONRepresentation.getJSONArray("inputs");
+		JSONArray outputs = JSONRepresentation.getJSONArray("outputs");
+		
+		String hashedArrays = isBeacon ? parents.toString() + outputs.toString() : parents.toString() + inputs.toString() + outputs.toString();
+		
+		return build(hashedArrays, toStrings(parents), toStrings(inputs), toStrings(outputs),
+				isBeacon ? null : JSONRepresentation.getString("sig"), isBeacon ? null : JSONRepresentation.getString("pubKey"),
+				isBeacon ? JSONRepresentation.getString("parentBeacon") : null, isBeacon ? JSONRepresentation.getString("nonce") : null,
+				JSONRepresentation.getLong("date"));
+	}
+	
+	/**
+	 * Decode a transaction straight from a provider's response stream, without building a {@link JSONObject} first
+	 * 
+	 * @param reader The reader positioned on the transaction object
+	 * @return The decoded transaction, or null if it is invalid
+	 * @throws IOException if the stream can't be read or is malformed
+	 */
+	public static Transaction fromJSONStream(JsonReader reader) throws IOException {
+		ArrayList<String> parents = null;
+		ArrayList<String> inputs = null;
+		ArrayList<String> outputs = null;
+		String sig = null;
+		String pubKey = null;
+		String parentBeacon = null;
+		String nonce = null;
+		Long date = null;
+		boolean genesis = false;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			switch(reader.nextName()) {
+			case "genesis":
+				reader.skipValue();
+				genesis = true;
+				break;
+			case "parents":
+				parents = reader.nextStringArray();
+				break;
+			case "inputs":
+				inputs = reader.nextStringArray();
+				break;
+			case "outputs":
+				outputs = reader.nextStringArray();
+				break;
+			case "sig":
+				sig = reader.nextString();
+				break;
+			case "pubKey":
+				pubKey = reader.nextString();
+				break;
+			case "parentBeacon":
+				parentBeacon = reader.nextString();
+				break;
+			case "nonce":
+				nonce = reader.nextString();
+				break;
+			case "date":
+				date = reader.nextLong();
+				break;
+				default:
+					reader.skipValue();
+			}
 		}
+		reader.endObject();
+		
+		if(genesis)
+			return genesis();
+		
+		boolean isBeacon = parentBeacon != null;
+		
+		if(isBeacon)
+			inputs = new ArrayList<String>();
+		
+		if(parents == null || inputs == null || outputs == null || date == null
+				|| (isBeacon ? nonce == null : sig == null || pubKey == null))
+			return null;
+		
+		//org.json serializes string arrays compactly, rebuild the exact same bytes the hash was computed on
+		String hashedArrays = isBeacon ? JsonReader.toJSONArray(parents) + JsonReader.toJSONArray(outputs)
+				: JsonReader.toJSONArray(parents) + JsonReader.toJSONArray(inputs) + JsonReader.toJSONArray(outputs);
+		
+		return build(hashedArrays, parents, inputs, outputs, sig, pubKey, parentBeacon, nonce, date);
+	}
+	
+	private static Transaction genesis() {
+		HashMap<String, TxOutput> genesisOutputs = new HashMap<String, TxOutput>();
+		genesisOutputs.put("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv", new TxOutput("V2N5tYdd1Cm1xqxQDsY15x9ED8kyAUvjbWv",(long) (100000 * Math.pow(10, VirgoAPI.DECIMALS))));
+		return new Transaction(new Sha256Hash("025a6f04e7047b713aaba7fc5003c8266302918c25d1526507becad795b01f3a"),null,null,new Sha256Hash[0],new Sha256Hash[0], genesisOutputs, null, null, 0);
+	}
+	
+	private static ArrayList<String> toStrings(JSONArray array) {
+		ArrayList<String> strings = new ArrayList<String>();
+		for(int i = 0; i < array.length(); i++)
+			strings.add(array.getString(i));
+		
+		return strings;
+	}
+	
+	/**
+	 * Verify a transaction's hash, signature and fields and build it
+	 * 
+	 * @param hashedArrays The serialized parents, inputs (unless beacon) and outputs arrays the transaction hash is computed on
+	 * @return The transaction, or null if invalid
+	 */
+	private static Transaction build(String hashedArrays, ArrayList<String> parents, ArrayList<String> inputs, ArrayList<String> outputs,
+			String sigHex, String pubKeyHex, String parentBeaconHex, String nonceHex, long date) {
 		
 		Sha256Hash txHash;
 		
-		if(JSONRepresentation.has("parentBeacon"))
-			txHash = Sha256.getDoubleHash(Converter.concatByteArrays((JSONRepresentation.getJSONArray("parents").toString() + JSONRepresentation.getJSONArray("outputs").toString()).getBytes(),
-					new Sha256Hash(JSONRepresentation.getString("parentBeacon")).toBytes(), Converter.longToBytes(JSONRepresentation.getLong("date")), Converter.hexToBytes(JSONRepresentation.getString("nonce"))));
+		if(parentBeaconHex != null)
+			txHash = Sha256.getDoubleHash(Converter.concatByteArrays(hashedArrays.getBytes(),
+					new Sha256Hash(parentBeaconHex).toBytes(), Converter.longToBytes(date), Converter.hexToBytes(nonceHex)));
 		else
-			txHash = Sha256.getDoubleHash(Converter.concatByteArrays(
-					(JSONRepresentation.getJSONArray("parents").toString() + JSONRepresentation.getJSONArray("inputs").toString() + JSONRepresentation.getJSONArray("outputs").toString()).getBytes(),
-					Converter.hexToBytes(JSONRepresentation.getString("pubKey")), Converter.longToBytes(JSONRepresentation.getLong("date"))));
+			txHash = Sha256.getDoubleHash(Converter.concatByteArrays(hashedArrays.getBytes(),
+					Converter.hexToBytes(pubKeyHex), Converter.longToBytes(date)));
 		
 		ECDSASignature sig = null;
 		byte[] pubKey = null;
 		
-		JSONArray parents = JSONRepresentation.getJSONArray("parents");
-		
 		ArrayList<Sha256Hash> inputsArray = new ArrayList<Sha256Hash>();
-		JSONArray inputs = new JSONArray();
-		
-		if(!JSONRepresentation.has("parentBeacon"))
-			inputs = JSONRepresentation.getJSONArray("inputs");
-		
-		JSONArray outputs = JSONRepresentation.getJSONArray("outputs");
-		
-		long date = JSONRepresentation.getLong("date");
 		
 		Sha256Hash parentBeacon = null;
 		byte[] nonce = null;
@@ -223,31 +322,31 @@ public class Transaction {
 		ECDSA signer = new ECDSA();
 		
 		//check if signature is good
-		if(!JSONRepresentation.has("parentBeacon")) {
-			 sig = ECDSASignature.fromByteArray(Converter.hexToBytes(JSONRepresentation.getString("sig")));
-			 pubKey = Converter.hexToBytes(JSONRepresentation.getString("pubKey"));
+		if(parentBeaconHex == null) {
+			 sig = ECDSASignature.fromByteArray(Converter.hexToBytes(sigHex));
+			 pubKey = Converter.hexToBytes(pubKeyHex);
 			
 			 if(!signer.Verify(txHash, sig, pubKey))
 				return null;
 		
 			//clean and verify inputs
-			for(int i2 = 0; i2 < inputs.length(); i2++) {
+			for(String input : inputs) {
 				try {
-					inputsArray.add(new Sha256Hash(inputs.getString(i2)));
+					inputsArray.add(new Sha256Hash(input));
 				}catch(IllegalArgumentException e) {
 					break;
 				}
 			}
 		}else {
-			parentBeacon = new Sha256Hash(JSONRepresentation.getString("parentBeacon"));
-			nonce = Converter.hexToBytes(JSONRepresentation.getString("nonce"));
+			parentBeacon = new Sha256Hash(parentBeaconHex);
+			nonce = Converter.hexToBytes(nonceHex);
 		}
 
 		//clean and verify parents
 		ArrayList<Sha256Hash> parentsArray = new ArrayList<Sha256Hash>();
-		for(int i2 = 0; i2 < parents.length(); i2++) {
+		for(String parent : parents) {
 			try {
-				parentsArray.add(new Sha256Hash(parents.getString(i2)));
+				parentsArray.add(new Sha256Hash(parent));
 			}catch(IllegalArgumentException e) {
 				break;
 			}
@@ -255,8 +354,7 @@ public class Transaction {
 
 		//clean and verify ouputs
 		HashMap<String, TxOutput> outputsArray = new HashMap<String, TxOutput>();
-		for(int i2 = 0; i2 < outputs.length(); i2++) {
-			String outputString = outputs.getString(i2);
+		for(String outputString : outputs) {
 			try {
 				TxOutput output = TxOutput.fromString(outputString);
 				outputsArray.put(output.getAddress(), output);
@@ -266,8 +364,8 @@ public class Transaction {
 		}
 		
 		//If everything has been successfully verified add transaction, else goto next iteration
-		if(inputsArray.size() == inputs.length() && parentsArray.size() == parents.length()
-				&& outputsArray.size() == outputs.length()) {
+		if(inputsArray.size() == inputs.size() && parentsArray.size() == parents.size()
+				&& outputsArray.size() == outputs.size()) {
 			
 			return new Transaction(txHash, sig, pubKey,
 					parentsArray.toArray(new Sha256Hash[0]), inputsArray.toArray(new Sha256Hash[0]), outputsArray, parentBeacon, nonce, date);
@@ -1,11 +1,13 @@
 package io.virgo.virgoAPI.data;
 
+import java.io.IOException;
 import java.util.HashMap;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.network.JsonReader;
 import io.virgo.virgoCryptoLib.Sha256Hash;
 
 /**
@@ -145,4 +147,109 @@ public class TransactionState {
 				beacon, JSONRepresentation.getInt("confirmations"), outputs);
 	}
 	
+	/**
+	 * Decode the state returned by a provider for a transaction straight from the response stream
+	 * 
+	 * @param hash The hash of the transaction the state is about
+	 * @param reader The reader positioned on the state object
+	 * @return The decoded state, or null if incomplete
+	 * @throws IOException if the stream can't be read or is malformed
+	 */
+	public static TransactionState fromJSONStream(Sha256Hash hash, JsonReader reader) throws IOException {
+		Integer status = null;
+		Integer confirmations = null;
+		String beacon = null;
+		HashMap<String, TxOutput> outputs = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			switch(reader.nextName()) {
+			case "status":
+				status = reader.nextInt();
+				break;
+			case "confirmations":
+				confirmations = reader.nextInt();
+				break;
+			case "beacon":
+				beacon = reader.nextString();
+				break;
+			case "outputsState":
+				outputs = new HashMap<String, TxOutput>();
+				
+				reader.beginArray();
+				while(reader.hasNext()) {
+					TxOutput output = readOutputState(reader);
+					outputs.put(output.getAddress(), output);
+				}
+				reader.endArray();
+				break;
+				default:
+					reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		if(status == null || confirmations == null || outputs == null)
+			return null;
+		
+		Sha256Hash beaconHash = null;
+		
+		if(confirmations > 0)
+			beaconHash = new Sha256Hash(beacon);
+		
+		return new TransactionState(hash, TxStatus.fromCode(status), beaconHash, confirmations, outputs);
+	}
+	
+	private static TxOutput readOutputState(JsonReader reader) throws IOException {
+		String address = null;
+		long amount = 0;
+		boolean spent = false;
+		HashMap<Sha256Hash, TxStatus> claimers = new HashMap<Sha256Hash, TxStatus>();
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			switch(reader.nextName()) {
+			case "address":
+				address = reader.nextString();
+				break;
+			case "amount":
+				amount = reader.nextLong();
+				break;
+			case "spent":
+				spent = reader.nextBoolean();
+				break;
+			case "claimers":
+				reader.beginArray();
+				while(reader.hasNext()) {
+					String id = null;
+					int claimerStatus = 0;
+					
+					reader.beginObject();
+					while(reader.hasNext()) {
+						switch(reader.nextName()) {
+						case "id":
+							id = reader.nextString();
+							break;
+						case "status":
+							claimerStatus = reader.nextInt();
+							break;
+							default:
+								reader.skipValue();
+						}
+					}
+					reader.endObject();
+					
+					claimers.put(new Sha256Hash(id), TxStatus.fromCode(claimerStatus));
+				}
+				reader.endArray();
+				break;
+				default:
+					reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		return new TxOutput(address, amount, spent, claimers);
+	}
+	
 }
\ No newline at end of file
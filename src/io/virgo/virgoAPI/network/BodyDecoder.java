@@ -0,0 +1,18 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decode a response body straight from the stream it is received on
+ */
+public interface BodyDecoder<T> {
+
+	/**
+	 * @param body The response body, closed by the caller once decoded
+	 * @return The decoded value, or null if the body is invalid
+	 * @throws IOException if the body can't be read or is malformed
+	 */
+	T decode(InputStream body) throws IOException;
+	
+}
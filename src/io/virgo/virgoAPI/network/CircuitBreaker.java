@@ -0,0 +1,127 @@
+package io.virgo.virgoAPI.network;
+
+/**
+ * Per provider circuit breaker<br>
+ * After too many consecutive failures the circuit opens and requests to the provider are rejected instantly.
+ * Once the open duration is elapsed a single probe request is let through, its outcome closes or re-opens the circuit.<br>
+ * Each allowed request gets a ticket to report its outcome with, outcomes of requests sent before the circuit last
+ * opened or half-opened are ignored so that only the probe decides of a half-open circuit.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * ENUM of circuit states
+	 */
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+	
+	private int failureThreshold;
+	private long openDuration;
+	
+	private State state = State.CLOSED;
+	private int failures = 0;
+	private long openedAt = 0;
+	private long epoch = 0;
+	
+	/**
+	 * Ticket of a rejected request
+	 */
+	public static final long REJECTED = -1;
+	
+	/**
+	 * @param failureThreshold Amount of consecutive failures opening the circuit
+	 * @param openDuration How long the circuit stays open before a probe request is allowed, in milliseconds
+	 */
+	public CircuitBreaker(int failureThreshold, long openDuration) {
+		if(failureThreshold <= 0)
+			throw new IllegalArgumentException(failureThreshold + " is not a valid failure threshold");
+		
+		if(openDuration <= 0)
+			throw new IllegalArgumentException(openDuration + " is not a valid open duration");
+		
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+	}
+	
+	/**
+	 * Ask to send a request, an open circuit whose duration elapsed switches to half-open and lets this request through as probe
+	 * @return the ticket to report the request's outcome with, or {@link #REJECTED} if it must be rejected
+	 */
+	public synchronized long acquire() {
+		switch(state) {
+		case CLOSED:
+			return epoch;
+		case OPEN:
+			if(System.currentTimeMillis() - openedAt < openDuration)
+				return REJECTED;
+			
+			state = State.HALF_OPEN;
+			return ++epoch;
+			default:
+				return REJECTED;
+		}
+	}
+	
+	/**
+	 * @return true if a request would currently be let through, without changing the circuit state
+	 */
+	public synchronized boolean isAvailable() {
+		switch(state) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			return System.currentTimeMillis() - openedAt >= openDuration;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * Record a successful request, closing the circuit if it was the probe
+	 * @param ticket The ticket given when the request was allowed
+	 */
+	public synchronized void onSuccess(long ticket) {
+		if(ticket != epoch || state == State.OPEN)
+			return;
+		
+		failures = 0;
+		state = State.CLOSED;
+	}
+	
+	/**
+	 * Record a failed request, opening the circuit if the threshold is reached or if it was the probe
+	 * @param ticket The ticket given when the request was allowed
+	 */
+	public synchronized void onFailure(long ticket) {
+		if(ticket != epoch || state == State.OPEN)
+			return;
+		
+		failures++;
+		
+		if(state == State.HALF_OPEN || failures >= failureThreshold) {
+			state = State.OPEN;
+			openedAt = System.currentTimeMillis();
+			epoch++;
+		}
+	}
+	
+	/**
+	 * Record a request abandoned before completion, a cancelled probe lets another one through
+	 * @param ticket The ticket given when the request was allowed
+	 */
+	public synchronized void onCancel(long ticket) {
+		if(ticket == epoch && state == State.HALF_OPEN) {
+			state = State.OPEN;
+			openedAt = System.currentTimeMillis() - openDuration;
+			epoch++;
+		}
+	}
+	
+	public synchronized State getState() {
+		return state;
+	}
+	
+}
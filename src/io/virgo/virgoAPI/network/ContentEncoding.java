@@ -0,0 +1,139 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed response bodies support, shared by the built-in transports
+ */
+final class ContentEncoding {
+
+	/**
+	 * Value of the Accept-Encoding header sent with GET requests
+	 */
+	static final String ACCEPTED = "gzip, deflate";
+	
+	private ContentEncoding() {}
+	
+	/**
+	 * Wrap a response body so it is decompressed while being read<br>
+	 * Wire and decoded bytes are recorded to the given stats once the returned stream is closed
+	 * @param body The body as received on the wire
+	 * @param encoding The response's Content-Encoding header, or null
+	 * @param stats The stats to record the transfer to
+	 * @return The decoded body
+	 * @throws IOException if the compressed body header can't be read
+	 */
+	static InputStream decode(InputStream body, String encoding, TransferStats stats) throws IOException {
+		CountingInputStream wire = new CountingInputStream(body);
+		InputStream decoded;
+		
+		try {
+			if(encoding == null || encoding.isEmpty() || encoding.equalsIgnoreCase("identity"))
+				decoded = wire;
+			else if(encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip"))
+				decoded = new GZIPInputStream(wire, 8192);
+			else if(encoding.equalsIgnoreCase("deflate"))
+				decoded = inflating(wire);
+			else
+				throw new IOException("Unsupported content encoding " + encoding);
+		}catch(IOException e) {
+			wire.close();
+			throw e;
+		}
+		
+		return new CountingInputStream(decoded) {
+			private boolean closed = false;
+			
+			@Override
+			public void close() throws IOException {
+				super.close();
+				
+				if(!closed) {
+					closed = true;
+					stats.record(wire.getCount(), getCount());
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Some servers send raw deflate data instead of the zlib wrapped format the specification asks for, accept both
+	 */
+	private static InputStream inflating(InputStream wire) throws IOException {
+		PushbackInputStream in = new PushbackInputStream(wire, 2);
+		
+		int cmf = in.read();
+		int flg = cmf == -1 ? -1 : in.read();
+		
+		if(flg != -1)
+			in.unread(flg);
+		if(cmf != -1)
+			in.unread(cmf);
+		
+		boolean zlib = flg != -1 && (cmf & 0x0f) == 8 && (cmf * 256 + flg) % 31 == 0;
+		Inflater inflater = new Inflater(!zlib);
+		
+		return new InflaterInputStream(in, inflater, 8192) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}finally {
+					inflater.end();
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Count the bytes read through a stream
+	 */
+	static class CountingInputStream extends FilterInputStream {
+
+		private long count = 0;
+		
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b != -1)
+				count++;
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if(read > 0)
+				count += read;
+			return read;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+		
+		long getCount() {
+			return count;
+		}
+		
+	}
+	
+}
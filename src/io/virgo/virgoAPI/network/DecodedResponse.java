@@ -0,0 +1,22 @@
+package io.virgo.virgoAPI.network;
+
+/**
+ * A {@link Response} whose body has been decoded by a {@link BodyDecoder} instead of being kept as a String
+ */
+public class DecodedResponse<T> extends Response {
+
+	private T value;
+	
+	public DecodedResponse(ResponseCode respCode, T value) {
+		super(respCode);
+		this.value = value;
+	}
+	
+	/**
+	 * @return The decoded body, or null if the request failed or the body couldn't be decoded
+	 */
+	public T getValue() {
+		return value;
+	}
+	
+}
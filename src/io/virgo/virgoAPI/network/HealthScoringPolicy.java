@@ -0,0 +1,71 @@
+package io.virgo.virgoAPI.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Default {@link ScoringPolicy}, combining chain weight with providers health<br>
+ * Providers whose beacon chain weight is within the tolerance of the heaviest one are considered up-to-date
+ * and come first, sorted by expected latency per successful request. Others follow by descending weight.
+ */
+public class HealthScoringPolicy implements ScoringPolicy {
+
+	private long weightTolerance;
+	
+	/**
+	 * @param weightTolerance How much lighter than the heaviest chain a provider's chain can be to still be considered up-to-date
+	 */
+	public HealthScoringPolicy(long weightTolerance) {
+		if(weightTolerance < 0)
+			throw new IllegalArgumentException(weightTolerance + " is not a valid weight tolerance");
+		
+		this.weightTolerance = weightTolerance;
+	}
+	
+	@Override
+	public ArrayList<Provider> sort(Map<Provider, Long> weights) {
+		long heaviest = Long.MIN_VALUE;
+		for(long weight : weights.values())
+			heaviest = Math.max(heaviest, weight);
+		
+		ArrayList<Provider> upToDate = new ArrayList<Provider>();
+		ArrayList<Provider> late = new ArrayList<Provider>();
+		
+		//health keeps changing with running requests, sort on a snapshot so comparisons stay consistent
+		HashMap<Provider, Double> latencies = new HashMap<Provider, Double>();
+		
+		for(Map.Entry<Provider, Long> entry : weights.entrySet()) {
+			latencies.put(entry.getKey(), expectedLatency(entry.getKey()));
+			
+			if(heaviest - entry.getValue() <= weightTolerance)
+				upToDate.add(entry.getKey());
+			else
+				late.add(entry.getKey());
+		}
+		
+		Collections.sort(upToDate, Comparator.comparingDouble((Provider provider) -> latencies.get(provider))
+				.thenComparing(Comparator.comparingLong((Provider provider) -> weights.get(provider)).reversed()));
+		
+		Collections.sort(late, Comparator.comparingLong((Provider provider) -> weights.get(provider)).reversed()
+				.thenComparingDouble(provider -> latencies.get(provider)));
+		
+		upToDate.addAll(late);
+		return upToDate;
+	}
+	
+	/**
+	 * @return The provider's average latency divided by its success rate, unknown latencies are considered null
+	 */
+	private static double expectedLatency(Provider provider) {
+		ProviderHealth health = provider.getHealth();
+		
+		double latency = Math.max(0, health.getLatency());
+		double successRate = Math.max(0.01, 1 - health.getErrorRate());
+		
+		return latency / successRate;
+	}
+	
+}
@@ -0,0 +1,68 @@
+package io.virgo.virgoAPI.network;
+
+/**
+ * Decide when a slow request should be duplicated to the next best provider<br>
+ * A request is hedged once it has been running for longer than the given latency percentile of its provider.
+ * Hedges are paid with a budget earned by regular requests so they can never more than double the load.
+ */
+public class HedgingPolicy {
+
+	/**
+	 * Minimum amount of latencies known for a provider before hedging its requests
+	 */
+	public static final int MIN_SAMPLES = 20;
+	
+	private static final double MAX_BURST = 10;
+	
+	private double percentile;
+	private double budget;
+	private double tokens = 0;
+	
+	/**
+	 * @param percentile The provider latency percentile after which a request is hedged, between 0 and 1 (ie 0.95)
+	 * @param budget The maximum amount of hedges per regular request, between 0 and 1 (ie 0.1 for at most 10% more requests)
+	 */
+	public HedgingPolicy(double percentile, double budget) {
+		if(percentile <= 0 || percentile > 1)
+			throw new IllegalArgumentException(percentile + " is not a valid percentile");
+		
+		if(budget < 0 || budget > 1)
+			throw new IllegalArgumentException(budget + " is not a valid hedging budget");
+		
+		this.percentile = percentile;
+		this.budget = budget;
+	}
+	
+	/**
+	 * @param provider The provider a request is about to be sent to
+	 * @return How long to wait before hedging the request in milliseconds, or -1 if it shouldn't be hedged
+	 */
+	public long getDelay(Provider provider) {
+		LatencyTracker latency = provider.getLatencyTracker();
+		
+		if(latency.getSampleCount() < MIN_SAMPLES)
+			return -1;
+		
+		return latency.getPercentile(percentile);
+	}
+	
+	/**
+	 * Earn hedging budget for a regular request
+	 */
+	public synchronized void onRequest() {
+		tokens = Math.min(MAX_BURST, tokens + budget);
+	}
+	
+	/**
+	 * Try to spend budget for a hedge
+	 * @return true if the hedge can be sent, false if the budget is exhausted
+	 */
+	public synchronized boolean tryHedge() {
+		if(tokens < 1)
+			return false;
+		
+		tokens--;
+		return true;
+	}
+	
+}
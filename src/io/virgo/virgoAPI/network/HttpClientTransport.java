@@ -0,0 +1,332 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+/**
+ * {@link Transport} based on {@link HttpClient}<br>
+ * Connections are kept alive and reused between requests, and HTTP/2 is negotiated when the provider supports it
+ * so concurrent requests are multiplexed on a single connection.<br>
+ * Responses are requested gzip or deflate compressed and decompressed while being read.<br>
+ * Requests are sent without blocking, the ones exceeding the pool size wait for a free slot.<br>
+ * Idle pooled connections are closed by the JDK after the jdk.httpclient.keepalive.timeout system property, in seconds
+ * (1200 by default), it is JVM wide and has to be set before the first {@link HttpClient} is created.
+ */
+public class HttpClientTransport implements Transport {
+
+	private volatile HttpClient client;
+	private Duration timeout;
+	private Executor decodingExecutor;
+	private TransferStats transferStats = new TransferStats();
+
+	private int availableSlots;
+	private ArrayDeque<CompletableFuture<Void>> waitingSlots = new ArrayDeque<CompletableFuture<Void>>();
+
+	/**
+	 * @param poolSize Maximum amount of requests in flight toward this provider, thus of pooled HTTP/1.1 connections
+	 */
+	public HttpClientTransport(int poolSize) {
+		this(poolSize, null, 10000);
+	}
+
+	/**
+	 * @param poolSize Maximum amount of requests in flight toward this provider, thus of pooled HTTP/1.1 connections
+	 * @param executor The executor running the client's asynchronous tasks, or null to use the client's default one
+	 * @param timeout Time after which a connection attempt or a request is abandoned, in milliseconds,
+	 * it covers the whole exchange up to the end of the body
+	 */
+	public HttpClientTransport(int poolSize, Executor executor, long timeout) {
+		if(poolSize <= 0)
+			throw new IllegalArgumentException(poolSize + " is not a valid pool size");
+
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(timeout));
+
+		if(executor != null)
+			builder.executor(executor);
+
+		//Bodies are read in a blocking way while decoding, keep it off the client's selector threads
+		decodingExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+
+		//Providers are often self-signed nodes, keep the same trust policy as HttpsURLConnection's one
+		try {
+			builder.sslContext(trustAllContext());
+		} catch (KeyManagementException | NoSuchAlgorithmException e) {}
+
+		client = builder.build();
+		availableSlots = poolSize;
+		this.timeout = Duration.ofMillis(timeout);
+	}
+
+	@Override
+	public Response get(String url) {
+		return getAsync(url).join();
+	}
+
+	@Override
+	public Response post(String url, String data) {
+		return postAsync(url, data).join();
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(String url) {
+		CompletableFuture<DecodedResponse<String>> request = getAsync(url, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+		return cancelling(request, request.thenApply(resp -> new Response(resp.getResponseCode(), resp.getValue())));
+	}
+
+	/**
+	 * Stream the response body to the decoder as it is received, it is never buffered as a whole
+	 */
+	@Override
+	public <T> CompletableFuture<DecodedResponse<T>> getAsync(String url, BodyDecoder<T> decoder) {
+		HttpRequest request;
+		try {
+			request = HttpRequest.newBuilder(URI.create(url))
+					.timeout(timeout)
+					.header("Accept-Encoding", ContentEncoding.ACCEPTED)
+					.GET()
+					.build();
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.completedFuture(new DecodedResponse<T>(ResponseCode.BAD_REQUEST, null));
+		}
+
+		return send(request, HttpResponse.BodyHandlers.ofInputStream(), response -> read(response, decoder));
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(String url, String data) {
+		HttpRequest request;
+		try {
+			request = HttpRequest.newBuilder(URI.create(url))
+					.timeout(timeout)
+					.header("Content-Type", "application/json; charset=UTF-8")
+					.POST(HttpRequest.BodyPublishers.ofString(data))
+					.build();
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.completedFuture(new Response(ResponseCode.BAD_REQUEST, null));
+		}
+
+		return send(request, HttpResponse.BodyHandlers.ofString(), response -> {
+			if(response != null) {
+				if(response.statusCode() == 200)
+					return new Response(ResponseCode.OK, null);
+				else if(response.statusCode() == 404)
+					return new Response(ResponseCode.NOT_FOUND, null);
+			}
+
+			return new Response(ResponseCode.BAD_REQUEST, null);
+		});
+	}
+
+	/**
+	 * Stream the response body to the decoder as it is received, it is never buffered as a whole
+	 */
+	@Override
+	public <T> CompletableFuture<DecodedResponse<T>> postAsync(String url, String data, BodyDecoder<T> decoder) {
+		HttpRequest request;
+		try {
+			request = HttpRequest.newBuilder(URI.create(url))
+					.timeout(timeout)
+					.header("Content-Type", "application/json; charset=UTF-8")
+					.header("Accept-Encoding", ContentEncoding.ACCEPTED)
+					.POST(HttpRequest.BodyPublishers.ofString(data))
+					.build();
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.completedFuture(new DecodedResponse<T>(ResponseCode.BAD_REQUEST, null));
+		}
+
+		return send(request, HttpResponse.BodyHandlers.ofInputStream(), response -> read(response, decoder));
+	}
+
+	/**
+	 * Decode a streamed response body, decompressing it if needed
+	 * @param response The response, or null if the request failed
+	 */
+	private <T> DecodedResponse<T> read(HttpResponse<InputStream> response, BodyDecoder<T> decoder) {
+		if(response == null)
+			return new DecodedResponse<T>(ResponseCode.REQUEST_TIMEOUT, null);
+
+		try(InputStream body = response.body()) {
+			if(response.statusCode() == 200) {
+				try(InputStream decoded = ContentEncoding.decode(body, response.headers().firstValue("Content-Encoding").orElse(null), transferStats)) {
+					return new DecodedResponse<T>(ResponseCode.OK, decoder.decode(decoded));
+				}
+			}else if(response.statusCode() == 404)
+				return new DecodedResponse<T>(ResponseCode.NOT_FOUND, null);
+		} catch (IOException | RuntimeException e) {
+			//Body cut short or malformed, counted as a failure of the provider
+			return new DecodedResponse<T>(ResponseCode.ERROR, null);
+		}
+
+		return new DecodedResponse<T>(ResponseCode.BAD_REQUEST, null);
+	}
+
+	/**
+	 * Send a request once a pool slot is available, without blocking the calling thread<br>
+	 * The slot is held until the response has been read. Cancelling the returned future closes the response body,
+	 * which stops its decoding and frees the slot, the exchange itself is only aborted on Java 16 and later.
+	 * The request's timeout only bounds the wait for the response headers, so the whole exchange gets the same deadline:
+	 * once it is reached the result is given as for a failed request and the body is closed the same way
+	 * @param handler How the response body is received
+	 * @param reader Turns the response into the result, given null if the request failed or the transport has been shut down
+	 * @return a future completed with the reader's result
+	 */
+	private <B, R> CompletableFuture<R> send(HttpRequest request, HttpResponse.BodyHandler<B> handler, Function<HttpResponse<B>, R> reader) {
+		CompletableFuture<R> result = new CompletableFuture<R>();
+
+		acquire().thenRun(() -> {
+			HttpClient client = this.client;
+			if(client == null || result.isDone()) {
+				release();
+				result.complete(reader.apply(null));
+				return;
+			}
+
+			CompletableFuture<HttpResponse<B>> exchange = client.sendAsync(request, handler);
+
+			//a cancelled exchange keeps running before Java 16, closing its body is what stops it
+			result.whenComplete((value, e) -> exchange.thenAccept(HttpClientTransport::discard));
+			result.completeOnTimeout(reader.apply(null), timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+			exchange.handleAsync((response, e) -> {
+				if(e != null)
+					return reader.apply(null);
+
+				if(result.isDone()) {
+					discard(response);
+					return reader.apply(null);
+				}
+
+				return reader.apply(response);
+			}, decodingExecutor)
+				.whenComplete((value, e) -> {
+					release();
+					if(e == null)
+						result.complete(value);
+					else
+						result.completeExceptionally(e);
+				});
+
+			cancelling(exchange, result);
+		});
+
+		return result;
+	}
+
+	/**
+	 * Close a response's streamed body, making a pending read of it fail
+	 */
+	private static void discard(HttpResponse<?> response) {
+		if(response.body() instanceof InputStream) {
+			try {
+				((InputStream) response.body()).close();
+			} catch (IOException e) {}
+		}
+	}
+
+	/**
+	 * Make the cancellation of a derived future cancel its source too
+	 * @return the derived future
+	 */
+	private static <T> CompletableFuture<T> cancelling(CompletableFuture<?> source, CompletableFuture<T> derived) {
+		derived.whenComplete((result, e) -> {
+			if(derived.isCancelled())
+				source.cancel(true);
+		});
+
+		return derived;
+	}
+
+	/**
+	 * @return a future completed once a pool slot has been reserved for the caller
+	 */
+	private synchronized CompletableFuture<Void> acquire() {
+		if(availableSlots > 0) {
+			availableSlots--;
+			return CompletableFuture.completedFuture(null);
+		}
+
+		CompletableFuture<Void> slot = new CompletableFuture<Void>();
+		waitingSlots.add(slot);
+		return slot;
+	}
+
+	/**
+	 * Hand the released slot to the next waiting request, or give it back to the pool
+	 */
+	private void release() {
+		CompletableFuture<Void> next;
+		synchronized(this) {
+			next = waitingSlots.poll();
+			if(next == null) {
+				availableSlots++;
+				return;
+			}
+		}
+		next.complete(null);
+	}
+
+	@Override
+	public TransferStats getTransferStats() {
+		return transferStats;
+	}
+
+	/**
+	 * Drop the client so its pooled connections get closed
+	 */
+	@Override
+	public void shutdown() {
+		client = null;
+	}
+
+	private static SSLContext trustAllContext() throws KeyManagementException, NoSuchAlgorithmException {
+		TrustManager[] trustAllCerts = new TrustManager[]{
+				new X509ExtendedTrustManager() {
+					public X509Certificate[] getAcceptedIssuers() {
+						return new X509Certificate[0];
+					}
+
+					public void checkServerTrusted(X509Certificate[] certs, String authType) {}
+
+					public void checkClientTrusted(X509Certificate[] certs, String authType) {}
+
+					public void checkServerTrusted(X509Certificate[] certs, String authType, Socket socket) {}
+
+					public void checkClientTrusted(X509Certificate[] certs, String authType, Socket socket) {}
+
+					public void checkServerTrusted(X509Certificate[] certs, String authType, SSLEngine engine) {}
+
+					public void checkClientTrusted(X509Certificate[] certs, String authType, SSLEngine engine) {}
+				}
+		};
+
+		SSLContext sc = SSLContext.getInstance("TLS");
+		sc.init(null, trustAllCerts, new SecureRandom());
+		return sc;
+	}
+
+}
@@ -0,0 +1,446 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Minimal pull JSON reader decoding a response body as it is received, without building a String or a DOM first<br>
+ * Separators are handled leniently, the reader expects well formed JSON
+ */
+public class JsonReader {
+
+	/**
+	 * ENUM of the kinds of values the reader can be positioned on
+	 */
+	public enum Token {
+		BEGIN_OBJECT,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		STRING,
+		NUMBER,
+		BOOLEAN,
+		NULL,
+		END_DOCUMENT
+	}
+
+	private Reader in;
+	private char[] buffer = new char[8192];
+	private int position = 0;
+	private int limit = 0;
+
+	private StringBuilder text = new StringBuilder();
+
+	public JsonReader(InputStream in) {
+		this(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	public JsonReader(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * @return The kind of the next value, without consuming it
+	 */
+	public Token peek() throws IOException {
+		int c = peekSignificant();
+
+		switch(c) {
+		case -1:
+			return Token.END_DOCUMENT;
+		case '{':
+			return Token.BEGIN_OBJECT;
+		case '}':
+			return Token.END_OBJECT;
+		case '[':
+			return Token.BEGIN_ARRAY;
+		case ']':
+			return Token.END_ARRAY;
+		case '"':
+			return Token.STRING;
+		case 't':
+		case 'f':
+			return Token.BOOLEAN;
+		case 'n':
+			return Token.NULL;
+			default:
+				return Token.NUMBER;
+		}
+	}
+
+	public void beginObject() throws IOException {
+		expect('{');
+	}
+
+	public void endObject() throws IOException {
+		expect('}');
+	}
+
+	public void beginArray() throws IOException {
+		expect('[');
+	}
+
+	public void endArray() throws IOException {
+		expect(']');
+	}
+
+	/**
+	 * @return true if the current object or array has another element
+	 */
+	public boolean hasNext() throws IOException {
+		int c = peekSignificant();
+		return c != '}' && c != ']' && c != -1;
+	}
+
+	/**
+	 * @return The name of the next object member
+	 */
+	public String nextName() throws IOException {
+		String name = nextString();
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * @return The next string value, numbers and literals are returned as their text
+	 */
+	public String nextString() throws IOException {
+		if(peekSignificant() != '"')
+			return nextLiteral();
+
+		position++;
+		text.setLength(0);
+
+		while(true) {
+			int c = read();
+
+			switch(c) {
+			case -1:
+				throw new IOException("Unterminated string");
+			case '"':
+				return text.toString();
+			case '\\':
+				readEscape();
+				break;
+				default:
+					text.append((char) c);
+			}
+		}
+	}
+
+	public long nextLong() throws IOException {
+		String value = nextString();
+
+		try {
+			return Long.parseLong(value);
+		}catch(NumberFormatException e) {
+			try {
+				return new BigDecimal(value).longValueExact();
+			}catch(NumberFormatException | ArithmeticException e2) {
+				throw new IOException(value + " is not a long");
+			}
+		}
+	}
+
+	public int nextInt() throws IOException {
+		long value = nextLong();
+
+		if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new IOException(value + " is not an int");
+
+		return (int) value;
+	}
+
+	public boolean nextBoolean() throws IOException {
+		String value = nextString();
+
+		if(value.equalsIgnoreCase("true"))
+			return true;
+		else if(value.equalsIgnoreCase("false"))
+			return false;
+
+		throw new IOException(value + " is not a boolean");
+	}
+
+	/**
+	 * Read an array of strings
+	 * @return The array's values
+	 */
+	public ArrayList<String> nextStringArray() throws IOException {
+		ArrayList<String> values = new ArrayList<String>();
+
+		beginArray();
+		while(hasNext())
+			values.add(nextString());
+		endArray();
+
+		return values;
+	}
+
+	/**
+	 * Skip the next value, including nested objects and arrays
+	 */
+	public void skipValue() throws IOException {
+		Token token = peek();
+
+		switch(token) {
+		case BEGIN_OBJECT:
+			beginObject();
+			while(hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+			break;
+		case BEGIN_ARRAY:
+			beginArray();
+			while(hasNext())
+				skipValue();
+			endArray();
+			break;
+		case END_OBJECT:
+		case END_ARRAY:
+		case END_DOCUMENT:
+			throw new IOException("No value to skip");
+			default:
+				nextString();
+		}
+	}
+
+	/**
+	 * Read the next value as compact JSON text, ie to hand a nested object to a DOM parser
+	 * @return The value's JSON text
+	 */
+	public String nextRawValue() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		appendValue(sb);
+		return sb.toString();
+	}
+
+	private void appendValue(StringBuilder sb) throws IOException {
+		switch(peek()) {
+		case BEGIN_OBJECT:
+			beginObject();
+			sb.append('{');
+			for(boolean first = true; hasNext(); first = false) {
+				if(!first)
+					sb.append(',');
+				sb.append(quote(nextName())).append(':');
+				appendValue(sb);
+			}
+			endObject();
+			sb.append('}');
+			break;
+		case BEGIN_ARRAY:
+			beginArray();
+			sb.append('[');
+			for(boolean first = true; hasNext(); first = false) {
+				if(!first)
+					sb.append(',');
+				appendValue(sb);
+			}
+			endArray();
+			sb.append(']');
+			break;
+		case STRING:
+			sb.append(quote(nextString()));
+			break;
+		case END_OBJECT:
+		case END_ARRAY:
+		case END_DOCUMENT:
+			throw new IOException("No value to read");
+			default:
+				sb.append(nextString());
+		}
+	}
+
+	/**
+	 * Quote a string the same way org.json serializes it, so hashes computed over re-serialized arrays match
+	 * @param value The string to quote
+	 * @return The quoted string
+	 */
+	public static String quote(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2);
+		sb.append('"');
+
+		char previous = 0;
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch(c) {
+			case '\\':
+			case '"':
+				sb.append('\\').append(c);
+				break;
+			case '/':
+				if(previous == '<')
+					sb.append('\\');
+				sb.append(c);
+				break;
+			case '\b':
+				sb.append("\\b");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\f':
+				sb.append("\\f");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+				default:
+					if(c < 0x20 || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100)) {
+						String hex = Integer.toHexString(c);
+						sb.append("\\u");
+						for(int j = hex.length(); j < 4; j++)
+							sb.append('0');
+						sb.append(hex);
+					}else {
+						sb.append(c);
+					}
+			}
+
+			previous = c;
+		}
+
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * Serialize a list of strings as a compact JSON array, identical to org.json's JSONArray.toString()
+	 * @param values The values to serialize
+	 * @return The JSON array
+	 */
+	public static String toJSONArray(ArrayList<String> values) {
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+
+		for(int i = 0; i < values.size(); i++) {
+			if(i > 0)
+				sb.append(',');
+			sb.append(quote(values.get(i)));
+		}
+
+		return sb.append(']').toString();
+	}
+
+	private String nextLiteral() throws IOException {
+		text.setLength(0);
+
+		while(true) {
+			int c = peekChar();
+
+			if(c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c))
+				break;
+
+			text.append((char) c);
+			position++;
+		}
+
+		if(text.length() == 0)
+			throw new IOException("Expected a value");
+
+		return text.toString();
+	}
+
+	private void readEscape() throws IOException {
+		int c = read();
+
+		switch(c) {
+		case 'b':
+			text.append('\b');
+			break;
+		case 't':
+			text.append('\t');
+			break;
+		case 'n':
+			text.append('\n');
+			break;
+		case 'f':
+			text.append('\f');
+			break;
+		case 'r':
+			text.append('\r');
+			break;
+		case 'u':
+			int code = 0;
+			for(int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if(digit < 0)
+					throw new IOException("Invalid unicode escape");
+				code = code * 16 + digit;
+			}
+			text.append((char) code);
+			break;
+		case -1:
+			throw new IOException("Unterminated escape");
+			default:
+				text.append((char) c);
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = peekSignificant();
+
+		if(c != expected)
+			throw new IOException("Expected '" + expected + "' but found " + (c == -1 ? "end of document" : "'" + (char) c + "'"));
+
+		position++;
+	}
+
+	/**
+	 * Skip whitespaces and separators
+	 * @return The next significant char, or -1 at the end of the document
+	 */
+	private int peekSignificant() throws IOException {
+		while(true) {
+			int c = peekChar();
+
+			if(c == -1)
+				return -1;
+
+			if(c == ',' || Character.isWhitespace(c)) {
+				position++;
+				continue;
+			}
+
+			return c;
+		}
+	}
+
+	private int peekChar() throws IOException {
+		if(position == limit && !fill())
+			return -1;
+
+		return buffer[position];
+	}
+
+	private int read() throws IOException {
+		if(position == limit && !fill())
+			return -1;
+
+		return buffer[position++];
+	}
+
+	private boolean fill() throws IOException {
+		limit = in.read(buffer, 0, buffer.length);
+		position = 0;
+
+		if(limit <= 0) {
+			limit = 0;
+			return false;
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,59 @@
+package io.virgo.virgoAPI.network;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the last requests sent to a provider to compute percentiles
+ */
+public class LatencyTracker {
+
+	private long[] samples;
+	private int count = 0;
+	private int next = 0;
+	
+	/**
+	 * @param size How many of the latest requests are kept
+	 */
+	public LatencyTracker(int size) {
+		samples = new long[size];
+	}
+	
+	/**
+	 * Record a request latency
+	 * @param latency The latency in milliseconds
+	 */
+	public synchronized void record(long latency) {
+		samples[next] = latency;
+		next = (next + 1) % samples.length;
+		
+		if(count < samples.length)
+			count++;
+	}
+	
+	/**
+	 * @return How many latencies are currently kept
+	 */
+	public synchronized int getSampleCount() {
+		return count;
+	}
+	
+	/**
+	 * @param percentile The wanted percentile, between 0 and 1
+	 * @return The latency under which the given percentile of the recorded requests completed, in milliseconds, or -1 if nothing has been recorded yet
+	 */
+	public long getPercentile(double percentile) {
+		long[] sorted;
+		synchronized(this) {
+			if(count == 0)
+				return -1;
+			
+			sorted = Arrays.copyOf(samples, count);
+		}
+		
+		Arrays.sort(sorted);
+		
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+	
+}
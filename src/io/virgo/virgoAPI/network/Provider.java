@@ -1,61 +1,57 @@
 package io.virgo.virgoAPI.network;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 public class Provider {
 
 	String hostname;
+	private Transport transport;
+	
+	private LatencyTracker latency = new LatencyTracker(128);
+	private ProviderHealth health = new ProviderHealth();
+	private CircuitBreaker circuitBreaker;
+	
+	private volatile int batchLimit = 0;
 	
 	public Provider(String hostname) {
+		this(hostname, new UrlConnectionTransport());
+	}
+	
+	/**
+	 * @param hostname The formated hostname of the provider
+	 * @param transport The {@link Transport} used to reach it
+	 */
+	public Provider(String hostname, Transport transport) {
+		this(hostname, transport, new CircuitBreaker(5, 10000));
+	}
+	
+	/**
+	 * @param hostname The formated hostname of the provider
+	 * @param transport The {@link Transport} used to reach it
+	 * @param circuitBreaker The {@link CircuitBreaker} guarding it
+	 */
+	public Provider(String hostname, Transport transport, CircuitBreaker circuitBreaker) {
 		this.hostname = hostname;
+		this.transport = transport;
+		this.circuitBreaker = circuitBreaker;
 	}
 	
 	/**
-	 * Call a REST GET method and return it's result
+	 * Call a REST GET method and return it's result<br>
+	 * Fails instantly with {@link ResponseCode#ERROR} if the provider's circuit is open
 	 * @param method The method to call
 	 * @return the result
 	 */
 	public Response get(String method) {
-		try {
-			URL url = new URL(hostname + method);
-			URLConnection con = url.openConnection();
-			
-			HttpURLConnection httpConnection = (HttpURLConnection)con;
-			con.connect();
-			
-			if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-				BufferedReader br = new BufferedReader(new InputStreamReader(con.getInputStream()));
-
-	            String line;
-
-	            StringBuilder sb = new StringBuilder();
-
-	            while ((line = br.readLine()) != null) {
-	                sb.append(line);
-	                sb.append(System.lineSeparator());
-	            }
-	            
-	            return new Response(ResponseCode.OK, sb.toString());
-	            
-			} else if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
-	            return new Response(ResponseCode.NOT_FOUND, null);
-			}
-			
-		} catch (MalformedURLException e) {
-			return new Response(ResponseCode.BAD_REQUEST, null);
-		} catch (IOException e) {
-			return new Response(ResponseCode.REQUEST_TIMEOUT, null);
-		}
-		
-		return new Response(ResponseCode.BAD_REQUEST, null);
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return new Response(ResponseCode.ERROR, null);
+		
+		long start = System.nanoTime();
+		Response resp = transport.get(hostname + method);
+		record(start, resp, ticket);
+		
+		return resp;
 	}
 	
 	/**
@@ -65,27 +61,185 @@ public class Provider {
 	 * @return the result
 	 */
 	public Response post(String method, String data) {
-		try {
-			URL url = new URL(hostname+method);
-			URLConnection con = url.openConnection();
-			HttpURLConnection httpConnection = (HttpURLConnection) con;
-			httpConnection.setFixedLengthStreamingMode(data.length());
-			con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-			con.setDoOutput(true);
-			con.connect();
-			try(OutputStream os = con.getOutputStream()) {
-			    os.write(data.getBytes(StandardCharsets.UTF_8));
-			}
-			
-			if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK)
-	            return new Response(ResponseCode.OK, null);
-			else if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND)
-				return new Response(ResponseCode.NOT_FOUND, null);
-			
-			
-		} catch (IOException e) {}
-		
-		return new Response(ResponseCode.BAD_REQUEST, null);
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return new Response(ResponseCode.ERROR, null);
+		
+		long start = System.nanoTime();
+		Response resp = transport.post(hostname + method, data);
+		record(start, resp, ticket);
+		
+		return resp;
+	}
+	
+	/**
+	 * Call a REST GET method without blocking the calling thread
+	 * @param method The method to call
+	 * @return a future completed with the result
+	 */
+	public CompletableFuture<Response> getAsync(String method) {
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return CompletableFuture.completedFuture(new Response(ResponseCode.ERROR, null));
+		
+		long start = System.nanoTime();
+		CompletableFuture<Response> request = transport.getAsync(hostname + method);
+		
+		//return the transport's future itself so cancelling it stops the request
+		request.whenComplete((resp, e) -> {
+			if(request.isCancelled())
+				circuitBreaker.onCancel(ticket);
+			else
+				record(start, resp, ticket);
+		});
+		
+		return request;
+	}
+	
+	/**
+	 * Call a REST GET method without blocking the calling thread, decoding the body as it is received
+	 * @param method The method to call
+	 * @param decoder The decoder of the response body
+	 * @return a future completed with the result
+	 */
+	public <T> CompletableFuture<DecodedResponse<T>> getAsync(String method, BodyDecoder<T> decoder) {
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return CompletableFuture.completedFuture(new DecodedResponse<T>(ResponseCode.ERROR, null));
+		
+		long start = System.nanoTime();
+		CompletableFuture<DecodedResponse<T>> request = transport.getAsync(hostname + method, decoder);
+		
+		request.whenComplete((resp, e) -> {
+			if(request.isCancelled())
+				circuitBreaker.onCancel(ticket);
+			else
+				record(start, resp, ticket);
+		});
+		
+		return request;
+	}
+	
+	/**
+	 * Call a REST POST method without blocking the calling thread
+	 * @param method The method to call
+	 * @param data The data to post
+	 * @return a future completed with the result
+	 */
+	public CompletableFuture<Response> postAsync(String method, String data) {
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return CompletableFuture.completedFuture(new Response(ResponseCode.ERROR, null));
+		
+		long start = System.nanoTime();
+		CompletableFuture<Response> request = transport.postAsync(hostname + method, data);
+		
+		request.whenComplete((resp, e) -> {
+			if(request.isCancelled())
+				circuitBreaker.onCancel(ticket);
+			else
+				record(start, resp, ticket);
+		});
+		
+		return request;
+	}
+	
+	/**
+	 * Call a REST POST method without blocking the calling thread, decoding the body as it is received
+	 * @param method The method to call
+	 * @param data The data to post
+	 * @param decoder The decoder of the response body
+	 * @return a future completed with the result
+	 */
+	public <T> CompletableFuture<DecodedResponse<T>> postAsync(String method, String data, BodyDecoder<T> decoder) {
+		long ticket = circuitBreaker.acquire();
+		if(ticket == CircuitBreaker.REJECTED)
+			return CompletableFuture.completedFuture(new DecodedResponse<T>(ResponseCode.ERROR, null));
+		
+		long start = System.nanoTime();
+		CompletableFuture<DecodedResponse<T>> request = transport.postAsync(hostname + method, data, decoder);
+		
+		request.whenComplete((resp, e) -> {
+			if(request.isCancelled())
+				circuitBreaker.onCancel(ticket);
+			else
+				record(start, resp, ticket);
+		});
+		
+		return request;
+	}
+	
+	/**
+	 * @return The formated hostname of this provider
+	 */
+	public String getHostname() {
+		return hostname;
+	}
+	
+	/**
+	 * @return The latencies of the latest requests sent to this provider
+	 */
+	public LatencyTracker getLatencyTracker() {
+		return latency;
+	}
+	
+	/**
+	 * @return The live health figures of this provider
+	 */
+	public ProviderHealth getHealth() {
+		return health;
+	}
+	
+	/**
+	 * @return The circuit breaker guarding this provider
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+	
+	/**
+	 * @return The maximum amount of keys this provider accepts in a batched lookup as advertised in its node infos, 0 if it doesn't support them
+	 */
+	public int getBatchLimit() {
+		return batchLimit;
+	}
+	
+	/**
+	 * Change the maximum amount of keys per batched lookup, ie 0 once the provider refused a batch<br>
+	 * The next node infos probe restores the advertised limit.
+	 */
+	public void setBatchLimit(int batchLimit) {
+		this.batchLimit = Math.max(0, batchLimit);
+	}
+	
+	/**
+	 * @return The response bytes received from this provider on the wire and once decompressed, or null if its transport doesn't measure them
+	 */
+	public TransferStats getTransferStats() {
+		return transport.getTransferStats();
+	}
+	
+	/**
+	 * Record a request's latency and outcome, not found responses are not considered as failures
+	 */
+	private void record(long start, Response resp, long ticket) {
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		boolean failed = resp == null || (resp.getResponseCode() != ResponseCode.OK && resp.getResponseCode() != ResponseCode.NOT_FOUND);
+		
+		latency.record(elapsed);
+		health.record(elapsed, failed);
+		
+		if(failed)
+			circuitBreaker.onFailure(ticket);
+		else
+			circuitBreaker.onSuccess(ticket);
+	}
+	
+	/**
+	 * Release the connections held toward this provider
+	 */
+	public void shutdown() {
+		transport.shutdown();
 	}
 	
 }
@@ -0,0 +1,41 @@
+package io.virgo.virgoAPI.network;
+
+/**
+ * Live health figures of a provider, computed as exponentially weighted moving averages of its real traffic
+ */
+public class ProviderHealth {
+
+	private static final double ALPHA = 0.2;
+	
+	private double latency = -1;
+	private double errorRate = 0;
+	
+	/**
+	 * Record the outcome of a request
+	 * @param latency How long the request took, in milliseconds
+	 * @param error true if the request failed (timeout, connection or server error)
+	 */
+	public synchronized void record(long latency, boolean error) {
+		if(this.latency < 0)
+			this.latency = latency;
+		else
+			this.latency += ALPHA * (latency - this.latency);
+		
+		errorRate += ALPHA * ((error ? 1 : 0) - errorRate);
+	}
+	
+	/**
+	 * @return The average latency of this provider in milliseconds, or -1 if unknown yet
+	 */
+	public synchronized double getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * @return The average rate of failed requests, between 0 and 1
+	 */
+	public synchronized double getErrorRate() {
+		return errorRate;
+	}
+	
+}
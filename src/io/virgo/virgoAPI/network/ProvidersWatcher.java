@@ -4,17 +4,19 @@ import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.Security;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -27,142 +29,153 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
- * Util class to keep an up-to-date peer list with score
+ * Util class to keep an up-to-date peer list with score<br>
+ * Every provider is probed concurrently at the configured rate, each probe having its own deadline.
+ * Scores are published as an immutable snapshot, so readers never wait for a check round.
  */
 public class ProvidersWatcher {
 
-	private volatile HashMap<String, Provider> providersByHostname = new HashMap<String, Provider>();
+	private ConcurrentHashMap<String, Provider> providersByHostname = new ConcurrentHashMap<String, Provider>();
 	
-	private volatile HashMap<Provider, Long> readyProviders = new HashMap<Provider, Long>();
-	private volatile ArrayList<Provider> pendingProviders = new ArrayList<Provider>();
+	private volatile Map<Provider, Long> readyProviders = Collections.emptyMap();
+	private Set<Provider> pendingProviders = ConcurrentHashMap.newKeySet();
 	
-	private LinkedBlockingQueue<Provider> providersToCheck = new LinkedBlockingQueue<Provider>();
+	private ScheduledExecutorService scheduler;
 	
-	private Thread pendingProvidersChecker;
-	
-	private Timer checkerTimer;
+	private ScoringPolicy scoringPolicy;
+	private long probeTimeout;
 	
 	public ProvidersWatcher(long checkRate) {
+		this(checkRate, new HealthScoringPolicy(0));
+	}
+	
+	/**
+	 * @param checkRate Rate at which providers are checked
+	 * @param scoringPolicy The policy sorting ready providers
+	 */
+	public ProvidersWatcher(long checkRate, ScoringPolicy scoringPolicy) {
+		this(checkRate, checkRate, scoringPolicy);
+	}
+	
+	/**
+	 * @param checkRate Rate at which providers are checked, in milliseconds
+	 * @param probeTimeout Time after which a provider not answering a check is considered down, in milliseconds
+	 * @param scoringPolicy The policy sorting ready providers
+	 */
+	public ProvidersWatcher(long checkRate, long probeTimeout, ScoringPolicy scoringPolicy) {
+		if(checkRate <= 0)
+			throw new IllegalArgumentException(checkRate + " is not a valid check rate");
+		
+		this.scoringPolicy = scoringPolicy;
+		this.probeTimeout = probeTimeout;
+		
 		try {
 			disableSSLChecks();
 		} catch (KeyManagementException | NoSuchAlgorithmException e1) {
 		}
-		/**
-		 * Update providers scores every x seconds
-		 * TODO: Make this parametrable
-		 */
-		checkerTimer = new Timer();
-		checkerTimer.scheduleAtFixedRate(new TimerTask() {
-
-			@Override
-			public void run() {
-				
-				for(Provider provider : pendingProviders)
-					if(!providersToCheck.contains(provider))
-						providersToCheck.add(provider);
-				
-				updateScores();
-			}
-			
-		}, 0, 10000);
 		
-		//Start a thread that will check pending providers to add them to active providers list
-		pendingProvidersChecker = new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				while(!Thread.interrupted())
-					try {
-						Provider provider = providersToCheck.take();
-						checkPendingProvider(provider);
-					} catch (InterruptedException e) {
-					}
-			}
-			
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "VirgoAPI-ProvidersWatcher");
+			thread.setDaemon(true);
+			return thread;
 		});
-		pendingProvidersChecker.start();
 		
+		//Update providers scores at the configured rate
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				updateScores();
+			}catch(Exception e) {}
+		}, 0, checkRate, TimeUnit.MILLISECONDS);
 	}
 	
 	/**
-	 * @return A list of ready providers, sorted by descending score
+	 * @return A list of ready providers, sorted by descending score<br>
+	 * Providers whose circuit is open are left out
 	 */
 	public ArrayList<Provider> getProvidersByScore() {
-		List<Long> values = new ArrayList<Long>(readyProviders.values());
-		Collections.sort(values, Collections.reverseOrder());
+		HashMap<Provider, Long> available = new HashMap<Provider, Long>();
 		
-		List<Provider> keys = new ArrayList<Provider>(readyProviders.keySet());
+		for(Map.Entry<Provider, Long> entry : readyProviders.entrySet())
+			if(entry.getKey().getCircuitBreaker().isAvailable())
+				available.put(entry.getKey(), entry.getValue());
 		
-		Iterator<Long> valuesIterator = values.iterator();
-		
-		ArrayList<Provider> sortedProviders = new ArrayList<Provider>();
+		return scoringPolicy.sort(available);
+	}
+	
+	/**
+	 * Update all providers scores by concurrently getting their node informations.
+	 * Score corresponds to the weight of their DAG, providers not answering before the deadline are set back as pending
+	 */
+	public void updateScores() {
+		HashMap<Provider, Long> scores = probe(providersByHostname.values());
 		
-		while(valuesIterator.hasNext()) {
-			Iterator<Provider> keysIterator = keys.iterator();
-			long score = valuesIterator.next();
+		synchronized(this) {
+			HashMap<Provider, Long> ready = new HashMap<Provider, Long>();
 			
-			while(keysIterator.hasNext()) {
-				Provider provider = keysIterator.next();
+			for(Provider provider : providersByHostname.values()) {
+				Long score = scores.get(provider);
 				
-				if(score == readyProviders.get(provider)) {
-					sortedProviders.add(provider);
-					keys.remove(provider);
-					break;
+				if(score != null) {
+					ready.put(provider, score);
+					pendingProviders.remove(provider);
+				}else {
+					pendingProviders.add(provider);
 				}
-				
 			}
 			
+			readyProviders = Collections.unmodifiableMap(ready);
 		}
-		
-		return sortedProviders;
 	}
 	
 	/**
-	 * Check a given provider validity by connecting to it and asking it's node informations
+	 * Check a pending provider validity by connecting to it and asking it's node informations
 	 * @param provider the provider to check
 	 */
 	private void checkPendingProvider(Provider provider) {
+		Long score = probe(Collections.singletonList(provider)).get(provider);
 		
-		Response resp = provider.get("/nodeinfos");
+		if(score == null)
+			return;
 		
-		if(resp.getResponseCode() == ResponseCode.OK) {
-			
-			try{
-				JSONObject state = new JSONObject(resp.getResponse());
-				readyProviders.put(provider, state.getLong("BeaconChainWeight"));
-				pendingProviders.remove(provider);
-			}catch(JSONException e) {}
+		synchronized(this) {
+			if(!pendingProviders.remove(provider))
+				return;
 			
+			HashMap<Provider, Long> ready = new HashMap<Provider, Long>(readyProviders);
+			ready.put(provider, score);
+			readyProviders = Collections.unmodifiableMap(ready);
 		}
 	}
 	
 	/**
-	 * Update ready providers scores by getting their node informations.
-	 * Score corresponds to the weight of their DAG
+	 * Concurrently ask the given providers their node informations, waiting at most the probe timeout
+	 * @return The beacon chain weight of each provider that answered correctly in time
 	 */
-	public void updateScores() {
-		for(Provider provider : readyProviders.keySet()) {
-			
-			Response resp = provider.get("/nodeinfos");
+	private HashMap<Provider, Long> probe(Collection<Provider> providers) {
+		HashMap<Provider, CompletableFuture<Response>> probes = new HashMap<Provider, CompletableFuture<Response>>();
+		
+		for(Provider provider : providers)
+			probes.put(provider, provider.getAsync("/nodeinfos")
+					.completeOnTimeout(new Response(ResponseCode.REQUEST_TIMEOUT, null), probeTimeout, TimeUnit.MILLISECONDS));
+		
+		CompletableFuture.allOf(probes.values().toArray(new CompletableFuture<?>[probes.size()])).join();
+		
+		HashMap<Provider, Long> scores = new HashMap<Provider, Long>();
+		for(Map.Entry<Provider, CompletableFuture<Response>> entry : probes.entrySet()) {
+			Response resp = entry.getValue().join();
 			
 			if(resp.getResponseCode() == ResponseCode.OK) {
-				
 				try {
-					
 					JSONObject state = new JSONObject(resp.getResponse());
-					readyProviders.replace(provider, state.getLong("BeaconChainWeight"));
+					scores.put(entry.getKey(), state.getLong("BeaconChainWeight"));
 					
-				}catch(JSONException e) {
-					readyProviders.remove(provider);
-					pendingProviders.add(provider);
-				}
-				
-			}else {
-				readyProviders.remove(provider);
-				pendingProviders.add(provider);
+					//nodes supporting batched lookups advertise how many keys they accept per request
+					entry.getKey().setBatchLimit(state.optInt("maxBatchSize", 0));
+				}catch(JSONException e) {}
 			}
-			
 		}
+		
+		return scores;
 	}
 	
 	/**
@@ -171,11 +184,11 @@ public class ProvidersWatcher {
 	 * @return true if added, false if already in list
 	 */
 	public boolean addProvider(Provider provider) {
-		if(providersByHostname.containsKey(provider.hostname))
+		if(providersByHostname.putIfAbsent(provider.hostname, provider) != null)
 			return false;
 		
-		pendingProviders.add(0, provider);
-		providersByHostname.put(provider.hostname, provider);
+		pendingProviders.add(provider);
+		scheduler.execute(() -> checkPendingProvider(provider));
 		return true;
 	}
 
@@ -207,22 +220,27 @@ public class ProvidersWatcher {
 	 * @param hostname The hostname of the provider to remove
 	 */
 	public void removeProvider(String hostname) {
-		Provider provider = providersByHostname.get(hostname);
+		Provider provider = providersByHostname.remove(hostname);
 		
 		if(provider == null)
 			return;
-		providersByHostname.remove(hostname);
 		
-		readyProviders.remove(provider);
-		pendingProviders.remove(provider);
-		providersToCheck.remove(provider);
+		synchronized(this) {
+			HashMap<Provider, Long> ready = new HashMap<Provider, Long>(readyProviders);
+			ready.remove(provider);
+			readyProviders = Collections.unmodifiableMap(ready);
+			pendingProviders.remove(provider);
+		}
+		provider.shutdown();
 		
 		System.out.println("removing " + hostname);
 	}
 	
 	public void shutdown() {
-		checkerTimer.cancel();
-		pendingProvidersChecker.interrupt();
+		scheduler.shutdownNow();
+		
+		for(Provider provider : providersByHostname.values())
+			provider.shutdown();
 	}
 	
 	public ArrayList<String> getProvidersHostnames(){
@@ -0,0 +1,18 @@
+package io.virgo.virgoAPI.network;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Decide in which order ready providers are used
+ */
+public interface ScoringPolicy {
+
+	/**
+	 * Sort ready providers from the most to the least preferred one
+	 * @param weights The beacon chain weight last reported by each ready provider
+	 * @return The sorted providers
+	 */
+	ArrayList<Provider> sort(Map<Provider, Long> weights);
+	
+}
@@ -0,0 +1,58 @@
+package io.virgo.virgoAPI.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Amount of response bytes received from a provider, as sent on the wire and once decompressed
+ */
+public class TransferStats {
+
+	private AtomicLong responses = new AtomicLong();
+	private AtomicLong wireBytes = new AtomicLong();
+	private AtomicLong decodedBytes = new AtomicLong();
+	
+	/**
+	 * Record a received response body
+	 * @param wire The amount of bytes received on the wire
+	 * @param decoded The amount of bytes once decompressed
+	 */
+	public void record(long wire, long decoded) {
+		responses.incrementAndGet();
+		wireBytes.addAndGet(wire);
+		decodedBytes.addAndGet(decoded);
+	}
+	
+	/**
+	 * @return The amount of response bodies received
+	 */
+	public long getResponses() {
+		return responses.get();
+	}
+	
+	/**
+	 * @return The amount of body bytes received on the wire
+	 */
+	public long getWireBytes() {
+		return wireBytes.get();
+	}
+	
+	/**
+	 * @return The amount of body bytes once decompressed
+	 */
+	public long getDecodedBytes() {
+		return decodedBytes.get();
+	}
+	
+	/**
+	 * @return Decoded bytes per wire byte, 1 if nothing has been received yet
+	 */
+	public double getCompressionRatio() {
+		long wire = wireBytes.get();
+		
+		if(wire == 0)
+			return 1;
+		
+		return (double) decodedBytes.get() / wire;
+	}
+	
+}
@@ -0,0 +1,112 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP layer used by a {@link Provider} to reach its REST API
+ * <br><br>
+ * Each provider owns its own transport, so connections are pooled and kept alive per provider
+ */
+public interface Transport {
+
+	/**
+	 * Call a REST GET method and return it's result
+	 * @param url The full URL to call
+	 * @return the result
+	 */
+	Response get(String url);
+	
+	/**
+	 * Call a REST POST method and return it's result
+	 * @param url The full URL to call
+	 * @param data The data to post
+	 * @return the result
+	 */
+	Response post(String url, String data);
+	
+	/**
+	 * Call a REST GET method without blocking the calling thread<br>
+	 * Transports without native asynchronous support run the blocking call on the common pool
+	 * @param url The full URL to call
+	 * @return a future completed with the result
+	 */
+	default CompletableFuture<Response> getAsync(String url) {
+		return CompletableFuture.supplyAsync(() -> get(url));
+	}
+	
+	/**
+	 * Call a REST GET method without blocking the calling thread and decode its body with the given decoder<br>
+	 * Transports able to stream the body feed it directly to the decoder, the default implementation decodes the String body
+	 * @param url The full URL to call
+	 * @param decoder The decoder of the response body
+	 * @return a future completed with the result
+	 */
+	default <T> CompletableFuture<DecodedResponse<T>> getAsync(String url, BodyDecoder<T> decoder) {
+		return getAsync(url).thenApply(resp -> decode(resp, decoder));
+	}
+	
+	/**
+	 * Call a REST POST method without blocking the calling thread
+	 * @param url The full URL to call
+	 * @param data The data to post
+	 * @return a future completed with the result
+	 */
+	default CompletableFuture<Response> postAsync(String url, String data) {
+		return CompletableFuture.supplyAsync(() -> post(url, data));
+	}
+	
+	/**
+	 * Call a REST POST method without blocking the calling thread and decode its body with the given decoder<br>
+	 * Transports able to stream the body feed it directly to the decoder, the default implementation decodes the String body
+	 * @param url The full URL to call
+	 * @param data The data to post
+	 * @param decoder The decoder of the response body
+	 * @return a future completed with the result
+	 */
+	default <T> CompletableFuture<DecodedResponse<T>> postAsync(String url, String data, BodyDecoder<T> decoder) {
+		return postAsync(url, data).thenApply(resp -> decode(resp, decoder));
+	}
+	
+	/**
+	 * Decode the String body of a response
+	 */
+	private static <T> DecodedResponse<T> decode(Response resp, BodyDecoder<T> decoder) {
+		if(resp.getResponseCode() != ResponseCode.OK || resp.getResponse() == null)
+			return new DecodedResponse<T>(resp.getResponseCode(), null);
+		
+		try(InputStream body = new ByteArrayInputStream(resp.getResponse().getBytes(StandardCharsets.UTF_8))) {
+			return new DecodedResponse<T>(ResponseCode.OK, decoder.decode(body));
+		}catch(Exception e) {
+			return new DecodedResponse<T>(ResponseCode.ERROR, null);
+		}
+	}
+	
+	/**
+	 * @return The amount of response bytes received on the wire and once decompressed, or null if this transport doesn't measure them
+	 */
+	default TransferStats getTransferStats() {
+		return null;
+	}
+	
+	/**
+	 * Release the connections held by this transport
+	 */
+	void shutdown();
+	
+	/**
+	 * Creates the transport of every new provider
+	 */
+	interface Factory {
+		
+		/**
+		 * @param hostname The formated hostname of the provider the transport is for
+		 * @return A new transport dedicated to this provider
+		 */
+		Transport create(String hostname);
+		
+	}
+	
+}
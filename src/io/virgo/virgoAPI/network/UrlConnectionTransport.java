@@ -0,0 +1,112 @@
+package io.virgo.virgoAPI.network;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link Transport} based on {@link HttpURLConnection}, relying on the JVM wide keep-alive cache
+ */
+public class UrlConnectionTransport implements Transport {
+
+	private int timeout;
+	private TransferStats transferStats = new TransferStats();
+	
+	public UrlConnectionTransport() {
+		this(10000);
+	}
+	
+	/**
+	 * @param timeout Time after which a connection attempt or a read is abandoned, in milliseconds
+	 */
+	public UrlConnectionTransport(int timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public Response get(String url) {
+		try {
+			URLConnection con = new URL(url).openConnection();
+			con.setConnectTimeout(timeout);
+			con.setReadTimeout(timeout);
+			con.setRequestProperty("Accept-Encoding", ContentEncoding.ACCEPTED);
+			
+			HttpURLConnection httpConnection = (HttpURLConnection)con;
+			con.connect();
+			
+			if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+	            return new Response(ResponseCode.OK, readBody(con));
+	            
+			} else if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+	            return new Response(ResponseCode.NOT_FOUND, null);
+			}
+			
+		} catch (MalformedURLException e) {
+			return new Response(ResponseCode.BAD_REQUEST, null);
+		} catch (IOException e) {
+			return new Response(ResponseCode.REQUEST_TIMEOUT, null);
+		}
+		
+		return new Response(ResponseCode.BAD_REQUEST, null);
+	}
+
+	@Override
+	public Response post(String url, String data) {
+		try {
+			URLConnection con = new URL(url).openConnection();
+			con.setConnectTimeout(timeout);
+			con.setReadTimeout(timeout);
+			HttpURLConnection httpConnection = (HttpURLConnection) con;
+			httpConnection.setFixedLengthStreamingMode(data.length());
+			con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+			con.setRequestProperty("Accept-Encoding", ContentEncoding.ACCEPTED);
+			con.setDoOutput(true);
+			con.connect();
+			try(OutputStream os = con.getOutputStream()) {
+			    os.write(data.getBytes(StandardCharsets.UTF_8));
+			}
+			
+			if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK)
+	            return new Response(ResponseCode.OK, readBody(con));
+			else if(httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND)
+				return new Response(ResponseCode.NOT_FOUND, null);
+			
+			
+		} catch (IOException e) {}
+		
+		return new Response(ResponseCode.BAD_REQUEST, null);
+	}
+
+	/**
+	 * Read the whole decompressed response body
+	 */
+	private String readBody(URLConnection con) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		
+		try(BufferedReader br = new BufferedReader(new InputStreamReader(ContentEncoding.decode(con.getInputStream(), con.getContentEncoding(), transferStats)))) {
+            String line;
+
+            while ((line = br.readLine()) != null) {
+                sb.append(line);
+                sb.append(System.lineSeparator());
+            }
+		}
+		
+		return sb.toString();
+	}
+	
+	@Override
+	public TransferStats getTransferStats() {
+		return transferStats;
+	}
+	
+	@Override
+	public void shutdown() {}
+	
+}
@@ -0,0 +1,83 @@
+package io.virgo.virgoAPI.requestsResponses;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.virgo.virgoAPI.network.ResponseCode;
+
+/**
+ * Object representing the response to a transaction broadcast<br>
+ * The response is given as soon as the quorum is reached, deliveries to the other providers keep running in the background
+ * and are added to the delivery report as they complete.
+ */
+public class BroadcastResponse extends RequestResponse {
+
+	private Map<String, ResponseCode> deliveries;
+	private int providersCount;
+	private int quorum;
+	private CompletableFuture<Void> completion;
+	
+	/**
+	 * @param code OK if the quorum has been reached
+	 * @param deliveries The live delivery report, response code by provider hostname
+	 * @param providersCount The amount of providers the transaction is sent to
+	 * @param quorum The amount of accepting providers required
+	 * @param completion Completed once every delivery is over
+	 */
+	public BroadcastResponse(ResponseCode code, Map<String, ResponseCode> deliveries, int providersCount, int quorum, CompletableFuture<Void> completion) {
+		super(RequestType.BROADCAST_TX, code);
+		this.deliveries = deliveries;
+		this.providersCount = providersCount;
+		this.quorum = quorum;
+		this.completion = completion;
+	}
+	
+	/**
+	 * @return The response code of each finished delivery by provider hostname
+	 */
+	public HashMap<String, ResponseCode> getDeliveries() {
+		return new HashMap<String, ResponseCode>(deliveries);
+	}
+	
+	/**
+	 * @return The amount of providers that accepted the transaction so far
+	 */
+	public int getAcceptedCount() {
+		int accepted = 0;
+		for(ResponseCode code : deliveries.values())
+			if(code == ResponseCode.OK)
+				accepted++;
+		
+		return accepted;
+	}
+	
+	/**
+	 * @return The amount of deliveries still running
+	 */
+	public int getPendingCount() {
+		return providersCount - deliveries.size();
+	}
+	
+	/**
+	 * @return The amount of providers the transaction is sent to
+	 */
+	public int getProvidersCount() {
+		return providersCount;
+	}
+	
+	/**
+	 * @return The amount of accepting providers that was required
+	 */
+	public int getQuorum() {
+		return quorum;
+	}
+	
+	/**
+	 * @return A future completed with the full delivery report once every delivery is over
+	 */
+	public CompletableFuture<HashMap<String, ResponseCode>> allDelivered() {
+		return completion.thenApply(v -> getDeliveries());
+	}
+	
+}
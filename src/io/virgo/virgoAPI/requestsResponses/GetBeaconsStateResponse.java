@@ -3,6 +3,7 @@ package io.virgo.virgoAPI.requestsResponses;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import io.virgo.virgoAPI.cache.HashKeyMap;
 import io.virgo.virgoAPI.data.BeaconState;
 import io.virgo.virgoAPI.network.ResponseCode;
 import io.virgo.virgoCryptoLib.Sha256Hash;
@@ -10,17 +11,30 @@ import io.virgo.virgoCryptoLib.Sha256Hash;
 public class GetBeaconsStateResponse extends RequestResponse {
 
 	private HashMap<Sha256Hash, BeaconState> states;
+	private HashKeyMap<BeaconState> keyedStates;
 	
 	public GetBeaconsStateResponse(ResponseCode code, HashMap<Sha256Hash, BeaconState> states) {
 		super(RequestType.GET_BEACONS_STATE, code);
 		this.states = states;
 	}
+	
+	private GetBeaconsStateResponse(ResponseCode code, HashKeyMap<BeaconState> states) {
+		super(RequestType.GET_BEACONS_STATE, code);
+		this.keyedStates = states;
+	}
+	
+	/**
+	 * @return A response backed by the given map, which isn't copied
+	 */
+	public static GetBeaconsStateResponse of(ResponseCode code, HashKeyMap<BeaconState> states) {
+		return new GetBeaconsStateResponse(code, states);
+	}
 
 	/**
 	 * @return An ArrayList of the {@link TransactionState} for the target transactions
 	 */
 	public ArrayList<BeaconState> getStates() {
-		return new ArrayList<BeaconState>(states.values());
+		return keyedStates != null ? keyedStates.values() : new ArrayList<BeaconState>(states.values());
 	}
 	
 	/**
@@ -29,7 +43,7 @@ public class GetBeaconsStateResponse extends RequestResponse {
 	 * @return The {@link TransactionState} of the given transaction or null if not found
 	 */
 	public BeaconState getState(Sha256Hash txHash) {
-		return states.get(txHash);
+		return keyedStates != null ? keyedStates.get(txHash) : states.get(txHash);
 	}
 	
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.virgo.virgoAPI.requestsResponses;
 
+import io.virgo.virgoAPI.cache.HashKeyMap;
 import io.virgo.virgoAPI.data.Transaction;
 import io.virgo.virgoAPI.network.ResponseCode;
 import io.virgo.virgoCryptoLib.Sha256Hash;
@@ -13,6 +14,7 @@ import java.util.HashMap;
 public class GetTransactionsResponse extends RequestResponse {
 
 	private HashMap<Sha256Hash, Transaction> transactions;
+	private HashKeyMap<Transaction> keyedTransactions;
 	
 	public GetTransactionsResponse(ResponseCode responseCode, HashMap<Sha256Hash, Transaction> transactions) {
 		super(RequestType.GET_TXS, responseCode);
@@ -20,8 +22,21 @@ public class GetTransactionsResponse extends RequestResponse {
 		this.transactions = transactions;
 	}
 	
+	private GetTransactionsResponse(ResponseCode responseCode, HashKeyMap<Transaction> transactions) {
+		super(RequestType.GET_TXS, responseCode);
+		
+		this.keyedTransactions = transactions;
+	}
+	
+	/**
+	 * @return A response backed by the given map, which isn't copied
+	 */
+	public static GetTransactionsResponse of(ResponseCode responseCode, HashKeyMap<Transaction> transactions) {
+		return new GetTransactionsResponse(responseCode, transactions);
+	}
+	
 	public ArrayList<Transaction> getTransactions(){
-		return new ArrayList<Transaction>(transactions.values());
+		return keyedTransactions != null ? keyedTransactions.values() : new ArrayList<Transaction>(transactions.values());
 	}
 	
 	/**
@@ -29,7 +44,7 @@ public class GetTransactionsResponse extends RequestResponse {
 	 * @param txId the id of the desired transaction
 	 */
 	public Transaction getTransaction(Sha256Hash txHash) {
-		return transactions.get(txHash);
+		return keyedTransactions != null ? keyedTransactions.get(txHash) : transactions.get(txHash);
 	}
 	
 }
@@ -3,6 +3,7 @@ package io.virgo.virgoAPI.requestsResponses;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import io.virgo.virgoAPI.cache.HashKeyMap;
 import io.virgo.virgoAPI.data.TransactionState;
 import io.virgo.virgoAPI.network.ResponseCode;
 import io.virgo.virgoCryptoLib.Sha256Hash;
@@ -12,17 +13,30 @@ import io.virgo.virgoCryptoLib.Sha256Hash;
 public class GetTxsStateResponse extends RequestResponse {
 
 	private HashMap<Sha256Hash, TransactionState> states;
+	private HashKeyMap<TransactionState> keyedStates;
 	
 	public GetTxsStateResponse(ResponseCode code, HashMap<Sha256Hash, TransactionState> states) {
 		super(RequestType.GET_TXS_STATE, code);
 		this.states = states;
 	}
+	
+	private GetTxsStateResponse(ResponseCode code, HashKeyMap<TransactionState> states) {
+		super(RequestType.GET_TXS_STATE, code);
+		this.keyedStates = states;
+	}
+	
+	/**
+	 * @return A response backed by the given map, which isn't copied
+	 */
+	public static GetTxsStateResponse of(ResponseCode code, HashKeyMap<TransactionState> states) {
+		return new GetTxsStateResponse(code, states);
+	}
 
 	/**
 	 * @return An ArrayList of the {@link TransactionState} for the target transactions
 	 */
 	public ArrayList<TransactionState> getStates() {
-		return new ArrayList<TransactionState>(states.values());
+		return keyedStates != null ? keyedStates.values() : new ArrayList<TransactionState>(states.values());
 	}
 	
 	/**
@@ -31,7 +45,7 @@ public class GetTxsStateResponse extends RequestResponse {
 	 * @return The {@link TransactionState} of the given transaction or null if not found
 	 */
 	public TransactionState getState(Sha256Hash txHash) {
-		return states.get(txHash);
+		return keyedStates != null ? keyedStates.get(txHash) : states.get(txHash);
 	}
 	
 }
@@ -13,5 +13,6 @@ public enum RequestType {
 	GET_POW_INFORMATIONS,
 	GET_LATEST_TXS,
 	GET_LATEST_BEACONS,
-	GET_BEACONS_STATE
+	GET_BEACONS_STATE,
+	BROADCAST_TX
 }
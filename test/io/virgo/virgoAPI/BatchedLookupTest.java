@@ -0,0 +1,258 @@
+package io.virgo.virgoAPI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.virgo.virgoAPI.network.Provider;
+import io.virgo.virgoAPI.network.ResponseCode;
+import io.virgo.virgoAPI.requestsResponses.GetTxsStateResponse;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * Batched states lookups against stand-in nodes
+ */
+public class BatchedLookupTest {
+
+	private static final Pattern HASH = Pattern.compile("[0-9a-fA-F]{64}");
+
+	private ArrayList<StandInNode> nodes = new ArrayList<StandInNode>();
+	private VirgoAPI api;
+
+	@After
+	public void tearDown() {
+		if(api != null)
+			api.shutdown();
+
+		for(StandInNode node : nodes)
+			node.stop();
+	}
+
+	@Test
+	public void detectsBatchSupport() throws Exception {
+		StandInNode batching = node(2, 3, true, hashes(0));
+		StandInNode single = node(1, 0, true, hashes(0));
+		connect(100);
+
+		for(Provider provider : api.getProvidersWatcher().getProvidersByScore()) {
+			if(provider.getHostname().equals(batching.hostname()))
+				assertEquals(3, provider.getBatchLimit());
+			else if(provider.getHostname().equals(single.hostname()))
+				assertEquals(0, provider.getBatchLimit());
+		}
+	}
+
+	@Test
+	public void splitsBatchesAndAsksMissingKeysToNextNode() throws Exception {
+		List<Sha256Hash> hashes = hashes(9);
+
+		StandInNode batching = node(2, 3, true, hashes.subList(0, 6));
+		StandInNode single = node(1, 0, true, hashes.subList(6, 9));
+		connect(100);
+
+		GetTxsStateResponse resp = api.async().getTxsState(hashes.toArray(new Sha256Hash[hashes.size()])).join();
+
+		assertEquals(ResponseCode.OK, resp.getResponseCode());
+		assertEquals(9, resp.getStates().size());
+
+		assertEquals(3, batching.batches.size());
+		for(Integer size : batching.batches)
+			assertEquals(3, (int) size);
+		assertTrue(batching.singles.isEmpty());
+
+		assertTrue(single.batches.isEmpty());
+		assertEquals(new HashSet<String>(names(hashes.subList(6, 9))), new HashSet<String>(single.singles));
+	}
+
+	@Test
+	public void fallsBackToSingleRequestsOn404() throws Exception {
+		List<Sha256Hash> hashes = hashes(4);
+
+		StandInNode node = node(1, 10, false, hashes);
+		connect(100);
+
+		//the pending check and the first scheduled check both probe the node at startup, let them restore its limit first
+		Thread.sleep(200);
+
+		GetTxsStateResponse resp = api.async().getTxsState(hashes.toArray(new Sha256Hash[hashes.size()])).join();
+
+		assertEquals(ResponseCode.OK, resp.getResponseCode());
+		assertEquals(4, resp.getStates().size());
+
+		assertEquals(1, node.batches.size());
+		assertEquals(new HashSet<String>(names(hashes)), new HashSet<String>(node.singles));
+
+		//the refused batch is remembered for the next lookups
+		assertEquals(0, api.getProvidersWatcher().getProvidersByScore().get(0).getBatchLimit());
+	}
+
+	@Test
+	public void capsBatchesToConfiguredSize() throws Exception {
+		List<Sha256Hash> hashes = hashes(5);
+
+		StandInNode node = node(1, 100, true, hashes);
+		connect(2);
+
+		GetTxsStateResponse resp = api.async().getTxsState(hashes.toArray(new Sha256Hash[hashes.size()])).join();
+
+		assertEquals(ResponseCode.OK, resp.getResponseCode());
+		for(Integer size : node.batches)
+			assertTrue(size <= 2);
+	}
+
+	private StandInNode node(long weight, int maxBatchSize, boolean servesBatches, List<Sha256Hash> known) throws IOException {
+		StandInNode node = new StandInNode(weight, maxBatchSize, servesBatches, names(known));
+		nodes.add(node);
+		return node;
+	}
+
+	/**
+	 * Build the API on the started nodes and wait for all of them to be ready
+	 */
+	private void connect(int batchSize) throws Exception {
+		VirgoAPI.Builder builder = new VirgoAPI.Builder().batchSize(batchSize);
+		for(StandInNode node : nodes)
+			builder.provider(new URL(node.hostname()));
+
+		api = builder.build();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while(api.getProvidersWatcher().getProvidersByScore().size() < nodes.size()) {
+			assertTrue("nodes not ready", System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private static List<Sha256Hash> hashes(int count) {
+		ArrayList<Sha256Hash> hashes = new ArrayList<Sha256Hash>();
+		for(int i = 0; i < count; i++)
+			hashes.add(new Sha256Hash(String.format("%064x", i + 1)));
+
+		return hashes;
+	}
+
+	private static List<String> names(List<Sha256Hash> hashes) {
+		ArrayList<String> names = new ArrayList<String>();
+		for(Sha256Hash hash : hashes)
+			names.add(hash.toString());
+
+		return names;
+	}
+
+	/**
+	 * Minimal node answering node infos and transactions states, recording the lookups it receives
+	 */
+	private static class StandInNode {
+
+		private HttpServer server;
+		private Set<String> known;
+
+		private List<Integer> batches = new CopyOnWriteArrayList<Integer>();
+		private List<String> singles = new CopyOnWriteArrayList<String>();
+
+		private StandInNode(long weight, int maxBatchSize, boolean servesBatches, List<String> known) throws IOException {
+			this.known = new HashSet<String>(known);
+
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+			server.createContext("/nodeinfos", exchange -> {
+				String infos = "{\"BeaconChainWeight\":" + weight;
+				if(maxBatchSize > 0)
+					infos += ",\"maxBatchSize\":" + maxBatchSize;
+
+				reply(exchange, 200, infos + "}");
+			});
+
+			server.createContext("/txs/state", exchange -> {
+				ArrayList<String> asked = hashes(exchange.getRequestBody());
+				batches.add(asked.size());
+
+				if(!servesBatches) {
+					reply(exchange, 404, "");
+					return;
+				}
+
+				StringBuilder states = new StringBuilder("{");
+				for(String hash : asked) {
+					if(!this.known.contains(hash))
+						continue;
+
+					if(states.length() > 1)
+						states.append(',');
+					states.append('"').append(hash).append("\":").append(state());
+				}
+
+				reply(exchange, 200, states.append('}').toString());
+			});
+
+			server.createContext("/tx/", exchange -> {
+				Matcher matcher = HASH.matcher(exchange.getRequestURI().getPath());
+				if(!matcher.find() || !exchange.getRequestURI().getPath().endsWith("/state")) {
+					reply(exchange, 404, "");
+					return;
+				}
+
+				String hash = matcher.group();
+				singles.add(hash);
+
+				if(this.known.contains(hash))
+					reply(exchange, 200, state());
+				else
+					reply(exchange, 404, "");
+			});
+
+			server.start();
+		}
+
+		private String hostname() {
+			return "http://127.0.0.1:" + server.getAddress().getPort();
+		}
+
+		private void stop() {
+			server.stop(0);
+		}
+
+		private static String state() {
+			return "{\"status\":0,\"confirmations\":0,\"outputsState\":[]}";
+		}
+
+		private static ArrayList<String> hashes(InputStream body) throws IOException {
+			ArrayList<String> hashes = new ArrayList<String>();
+			Matcher matcher = HASH.matcher(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+			while(matcher.find())
+				hashes.add(matcher.group());
+
+			return hashes;
+		}
+
+		private static void reply(HttpExchange exchange, int code, String body) throws IOException {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+
+			try(OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package io.virgo.virgoAPI.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * HashKeyMap checked against HashMap
+ */
+public class HashKeyMapTest {
+
+	@Test
+	public void matchesHashMapOnRandomWorkload() {
+		Random random = new Random(1);
+		List<Sha256Hash> hashes = hashes(random, 3000);
+
+		HashKeyMap<Integer> map = new HashKeyMap<Integer>();
+		HashMap<Sha256Hash, Integer> reference = new HashMap<Sha256Hash, Integer>();
+
+		for(int op = 0; op < 200000; op++) {
+			Sha256Hash hash = hashes.get(random.nextInt(hashes.size()));
+
+			switch(random.nextInt(5)) {
+			case 0:
+			case 1:
+				assertEquals(reference.put(hash, op), map.put(hash, op));
+				break;
+			case 2:
+				assertEquals(reference.remove(hash), map.remove(hash));
+				break;
+			case 3:
+				assertEquals(reference.remove(hash), map.remove(HashKey.of(hash)));
+				break;
+			default:
+				assertEquals(reference.get(hash), map.get(hash));
+				assertEquals(reference.get(hash), map.get(HashKey.of(hash)));
+				assertEquals(reference.containsKey(hash), map.containsKey(hash));
+			}
+
+			assertEquals(reference.size(), map.size());
+		}
+
+		assertSameEntries(reference, map);
+	}
+
+	@Test
+	public void keepsEntriesWhileGrowing() {
+		List<Sha256Hash> hashes = hashes(new Random(2), 20000);
+
+		HashKeyMap<Integer> map = new HashKeyMap<Integer>(0);
+		HashMap<Sha256Hash, Integer> reference = new HashMap<Sha256Hash, Integer>();
+		for(int i = 0; i < hashes.size(); i++) {
+			map.put(hashes.get(i), i);
+			reference.put(hashes.get(i), i);
+		}
+
+		assertSameEntries(reference, map);
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertNull(map.get(hashes.get(0)));
+	}
+
+	@Test
+	public void copiesMap() {
+		HashMap<Sha256Hash, Integer> reference = new HashMap<Sha256Hash, Integer>();
+		List<Sha256Hash> hashes = hashes(new Random(3), 100);
+		for(int i = 0; i < hashes.size(); i++)
+			reference.put(hashes.get(i), i);
+
+		assertSameEntries(reference, new HashKeyMap<Integer>(reference));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void rejectsNullValues() {
+		new HashKeyMap<Integer>().put(hashes(new Random(4), 1).get(0), null);
+	}
+
+	private static void assertSameEntries(HashMap<Sha256Hash, Integer> reference, HashKeyMap<Integer> map) {
+		assertEquals(reference.size(), map.size());
+		assertEquals(reference.size(), map.values().size());
+
+		for(Sha256Hash hash : reference.keySet())
+			assertEquals(reference.get(hash), map.get(hash));
+
+		HashMap<Sha256Hash, Integer> visited = new HashMap<Sha256Hash, Integer>();
+		map.forEach((key, value) -> visited.put(key.toSha256Hash(), value));
+		assertEquals(reference, visited);
+	}
+
+	/**
+	 * Random hashes, a third of them sharing their first word so they collide in the map
+	 */
+	private static List<Sha256Hash> hashes(Random random, int count) {
+		ArrayList<Sha256Hash> hashes = new ArrayList<Sha256Hash>();
+
+		for(int i = 0; i < count; i++) {
+			byte[] bytes = new byte[HashKey.BYTES];
+			random.nextBytes(bytes);
+
+			if(i % 3 == 0)
+				for(int j = 0; j < 8; j++)
+					bytes[j] = 7;
+
+			StringBuilder hex = new StringBuilder();
+			for(byte b : bytes)
+				hex.append(String.format("%02x", b));
+
+			hashes.add(new Sha256Hash(hex.toString()));
+		}
+
+		return hashes;
+	}
+
+}
@@ -0,0 +1,208 @@
+package io.virgo.virgoAPI.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.virgo.virgoAPI.crypto.TxOutput;
+import io.virgo.virgoAPI.data.Transaction;
+import io.virgo.virgoCryptoLib.Sha256Hash;
+
+/**
+ * TransactionStore recovery from files left by a crash
+ */
+public class TransactionStoreTest {
+
+	private static final int LOG_HEADER = 8;
+	private static final int RECORD_HEADER = 8;
+
+	private Path directory;
+	private TransactionStore store;
+
+	@After
+	public void tearDown() throws IOException {
+		if(store != null)
+			store.close();
+
+		if(directory != null) {
+			try(Stream<Path> paths = Files.walk(directory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	@Test
+	public void reopensStoredTransactions() throws IOException {
+		List<Transaction> transactions = transactions(3);
+		fill(transactions);
+
+		store = new TransactionStore(directory);
+		assertEquals(3, store.size());
+		for(Transaction transaction : transactions)
+			assertStored(transaction);
+	}
+
+	@Test
+	public void keepsTransactionsWhileIndexGrows() throws IOException {
+		List<Transaction> transactions = transactions(5000);
+		fill(transactions);
+
+		store = new TransactionStore(directory);
+		assertEquals(5000, store.size());
+		assertEquals(0, store.getFailedWrites());
+		for(Transaction transaction : transactions)
+			assertStored(transaction);
+	}
+
+	@Test
+	public void dropsTruncatedLastRecord() throws IOException {
+		List<Transaction> transactions = transactions(3);
+		fill(transactions);
+
+		List<Integer> records = records();
+		try(FileChannel log = FileChannel.open(directory.resolve("transactions.log"), StandardOpenOption.WRITE)) {
+			log.truncate(records.get(2) + RECORD_HEADER + 10);
+		}
+
+		store = new TransactionStore(directory);
+		assertStored(transactions.get(0));
+		assertStored(transactions.get(1));
+		assertNull(store.get(transactions.get(2).getHash()));
+		assertFalse(store.contains(transactions.get(2).getHash()));
+
+		//the cut record's place is reused
+		store.put(transactions.get(2));
+		store.close();
+
+		store = new TransactionStore(directory);
+		for(Transaction transaction : transactions)
+			assertStored(transaction);
+	}
+
+	@Test
+	public void cutsLogAtDamagedRecord() throws IOException {
+		List<Transaction> transactions = transactions(3);
+		fill(transactions);
+
+		List<Integer> records = records();
+		try(FileChannel log = FileChannel.open(directory.resolve("transactions.log"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer crc = ByteBuffer.allocate(4);
+			log.read(crc, records.get(1) + 4);
+			crc.putInt(0, crc.getInt(0) ^ 1);
+			crc.rewind();
+			log.write(crc, records.get(1) + 4);
+		}
+
+		store = new TransactionStore(directory);
+		assertStored(transactions.get(0));
+		assertNull(store.get(transactions.get(1).getHash()));
+		assertNull(store.get(transactions.get(2).getHash()));
+
+		Transaction added = transactions(4).get(3);
+		store.put(added);
+		store.close();
+
+		store = new TransactionStore(directory);
+		assertStored(transactions.get(0));
+		assertStored(added);
+		assertNull(store.get(transactions.get(1).getHash()));
+	}
+
+	@Test
+	public void rebuildsIndexAheadOfLog() throws IOException {
+		List<Transaction> transactions = transactions(3);
+		fill(transactions);
+
+		//the log lost its last records, the index still points to them
+		List<Integer> records = records();
+		try(FileChannel log = FileChannel.open(directory.resolve("transactions.log"), StandardOpenOption.WRITE)) {
+			log.truncate(records.get(1));
+		}
+
+		store = new TransactionStore(directory);
+		assertEquals(1, store.size());
+		assertStored(transactions.get(0));
+		assertNull(store.get(transactions.get(1).getHash()));
+		assertNull(store.get(transactions.get(2).getHash()));
+	}
+
+	@Test
+	public void rebuildsMissingIndex() throws IOException {
+		List<Transaction> transactions = transactions(3);
+		fill(transactions);
+
+		Files.delete(directory.resolve("transactions.idx"));
+
+		store = new TransactionStore(directory);
+		assertEquals(3, store.size());
+		for(Transaction transaction : transactions)
+			assertStored(transaction);
+	}
+
+	private void fill(List<Transaction> transactions) throws IOException {
+		directory = Files.createTempDirectory("transaction-store");
+
+		TransactionStore filled = new TransactionStore(directory);
+		for(Transaction transaction : transactions)
+			filled.put(transaction);
+		filled.close();
+	}
+
+	private void assertStored(Transaction transaction) {
+		assertTrue(store.contains(transaction.getHash()));
+
+		Transaction stored = store.get(transaction.getHash());
+		assertNotNull(stored);
+		assertEquals(transaction.getHash(), stored.getHash());
+		assertEquals(transaction.getParentBeacon(), stored.getParentBeacon());
+		assertEquals(transaction.getDate(), stored.getDate());
+	}
+
+	/**
+	 * @return The offsets of the log's records
+	 */
+	private List<Integer> records() throws IOException {
+		ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("transactions.log")));
+		ArrayList<Integer> records = new ArrayList<Integer>();
+
+		for(int position = LOG_HEADER; log.getInt(position) > 0; position += RECORD_HEADER + log.getInt(position))
+			records.add(position);
+
+		return records;
+	}
+
+	/**
+	 * Beacon transactions without outputs, so no signature or address is needed
+	 */
+	private static List<Transaction> transactions(int count) {
+		ArrayList<Transaction> transactions = new ArrayList<Transaction>();
+
+		for(int i = 0; i < count; i++) {
+			Sha256Hash hash = new Sha256Hash(String.format("%08x%056x", i * 0x9e3779b9, i + 1));
+			Sha256Hash parent = new Sha256Hash(String.format("%064x", i + 1000000));
+
+			transactions.add(new Transaction(hash, null, null, new Sha256Hash[] {parent}, new Sha256Hash[0],
+					new HashMap<String, TxOutput>(), parent, new byte[] {(byte) i, 1, 2, 3}, 1600000000000L + i));
+		}
+
+		return transactions;
+	}
+
+}